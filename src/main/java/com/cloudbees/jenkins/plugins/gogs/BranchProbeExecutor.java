@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Runs {@link jenkins.scm.api.SCMSourceCriteria} probes during branch discovery.
+ *
+ * There is one bounded pool per Gogs server, shared by every {@link GogsSCMSource} pointing to it, so concurrent
+ * scans of many repositories never send more than
+ * {@code com.cloudbees.jenkins.plugins.gogs.BranchProbeExecutor.concurrency} (default 8) probes at the same time
+ * to a single server. Idle threads are released after a minute.
+ */
+final class BranchProbeExecutor {
+
+    static final int CONCURRENCY = Math.max(1, Integer.getInteger(BranchProbeExecutor.class.getName() + ".concurrency", 8));
+
+    private static final ConcurrentMap<String, ExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+
+    @NonNull
+    static ExecutorService forServer(@CheckForNull String gogsServerUrl) {
+        String key = String.valueOf(gogsServerUrl);
+        ExecutorService executor = EXECUTORS.get(key);
+        if (executor == null) {
+            ThreadPoolExecutor created = new ThreadPoolExecutor(CONCURRENCY, CONCURRENCY, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), BranchProbeExecutor.class.getName() + " " + key));
+            created.allowCoreThreadTimeOut(true);
+            executor = EXECUTORS.putIfAbsent(key, created);
+            if (executor == null) {
+                executor = created;
+            } else {
+                created.shutdown();
+            }
+        }
+        return executor;
+    }
+
+    private BranchProbeExecutor() {}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import com.google.common.base.Charsets;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.util.StreamTaskListener;
+
+/**
+ * Work running on a worker thread of a scan, logging into its own buffer. The buffer is copied to the scan log when
+ * the work is awaited, so awaiting in a fixed order gives the same output as running everything sequentially.
+ *
+ * @param <T> the result type
+ */
+final class BufferedLogTask<T> {
+
+    /**
+     * Work to run on a worker thread.
+     */
+    interface Work<T> {
+        T run(@NonNull TaskListener listener) throws Exception;
+    }
+
+    private final Future<T> future;
+
+    private final ByteArrayOutputStream log;
+
+    private BufferedLogTask(Future<T> future, ByteArrayOutputStream log) {
+        this.future = future;
+        this.log = log;
+    }
+
+    /**
+     * @param executor the workers
+     * @param auth the authentication the work runs as, usually the one of the scan
+     * @param work the work
+     * @return the submitted task
+     */
+    @NonNull
+    static <T> BufferedLogTask<T> submit(@NonNull ExecutorService executor, @NonNull final Authentication auth,
+                                         @NonNull final Work<T> work) {
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        Future<T> future = executor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                SecurityContext context = ACL.impersonate(auth);
+                try {
+                    return work.run(new StreamTaskListener(log, Charsets.UTF_8));
+                } finally {
+                    SecurityContextHolder.setContext(context);
+                }
+            }
+        });
+        return new BufferedLogTask<>(future, log);
+    }
+
+    /**
+     * Waits for the work and copies its log to the scan listener.
+     *
+     * @return the result of the work
+     */
+    T await(@NonNull TaskListener listener) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            listener.getLogger().print(new String(log.toByteArray(), Charsets.UTF_8));
+        }
+    }
+
+    /**
+     * Interrupts the work if it is still running.
+     */
+    void cancel() {
+        future.cancel(true);
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cloudbees.jenkins.plugins.gogs.api.GogsApi;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsTreeEntry;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Answers whether paths exist at a commit from tree listings, so probing several paths of a commit lists each
+ * directory involved once instead of requesting every path.
+ *
+ * Directories are listed lazily, the root one first, and kept for the lifetime of the object.
+ */
+final class CommitTree {
+
+    private final GogsApi gogs;
+
+    private final String commit;
+
+    /**
+     * Entries by name, keyed by directory path ("" for the root, then "dir/", "dir/sub/"...). Guarded by itself.
+     */
+    private final Map<String, Map<String, GogsTreeEntry>> directories = new HashMap<>();
+
+    /**
+     * Set once a listing failed, because the server can not list trees or does not find the commit.
+     */
+    private volatile boolean unsupported;
+
+    CommitTree(@NonNull GogsApi gogs, @NonNull String commit) {
+        this.gogs = gogs;
+        this.commit = commit;
+    }
+
+    /**
+     * @param path a path relative to the repository root
+     * @return whether the path exists at the commit, or null if the commit could not be listed
+     */
+    @CheckForNull
+    Boolean exists(@NonNull String path) throws InterruptedException {
+        String directory = "";
+        String sha = commit;
+        String[] segments = path.split("/");
+        String name = null;
+        for (String segment : segments) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if (name != null) {
+                // the previous segment has to be a directory to go on
+                Map<String, GogsTreeEntry> entries = list(directory, sha);
+                if (entries == null) {
+                    return null;
+                }
+                GogsTreeEntry entry = entries.get(name);
+                if (entry == null || !entry.isDirectory()) {
+                    return false;
+                }
+                directory = directory + name + "/";
+                sha = entry.getSha();
+            }
+            name = segment;
+        }
+        if (name == null) {
+            // the root directory
+            return true;
+        }
+        Map<String, GogsTreeEntry> entries = list(directory, sha);
+        return entries == null ? null : entries.containsKey(name);
+    }
+
+    @CheckForNull
+    private Map<String, GogsTreeEntry> list(String directory, String sha) throws InterruptedException {
+        if (unsupported) {
+            return null;
+        }
+        synchronized (directories) {
+            Map<String, GogsTreeEntry> entries = directories.get(directory);
+            if (entries != null) {
+                return entries;
+            }
+        }
+        List<? extends GogsTreeEntry> listing = gogs.getTree(sha);
+        if (listing == null) {
+            unsupported = true;
+            return null;
+        }
+        Map<String, GogsTreeEntry> entries = new HashMap<>();
+        for (GogsTreeEntry entry : listing) {
+            entries.put(entry.getPath(), entry);
+        }
+        synchronized (directories) {
+            directories.put(directory, entries);
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import com.cloudbees.hudson.plugins.folder.properties.FolderCredentialsProvider;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardCredentials;
+import com.google.common.base.Optional;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.SaveableListener;
+import jenkins.scm.api.SCMSourceOwner;
+
+/**
+ * Remembers the outcome of credentials lookups made by {@link GogsApiConnector}, as walking every credentials provider
+ * and domain is expensive and happens for every scan, probe, head retrieval and notification.
+ *
+ * Lookups are keyed by context, credentials id, type and Gogs server (from which the domain requirements are built).
+ * The whole cache is dropped when a credentials store is saved: the global store, a folder credentials store or a
+ * user store. As other providers do not report changes, entries also expire after
+ * {@code com.cloudbees.jenkins.plugins.gogs.CredentialsLookupCache.ttlSeconds} (default 120); 0 disables the cache.
+ */
+final class CredentialsLookupCache {
+
+    private static final Logger LOGGER = Logger.getLogger(CredentialsLookupCache.class.getName());
+
+    static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(
+            Math.max(0L, Long.getLong(CredentialsLookupCache.class.getName() + ".ttlSeconds", 120L)));
+
+    static final int MAX_ENTRIES = 1000;
+
+    /**
+     * Lookup outcomes, absent when nothing matched, keyed by context, server, id and type.
+     */
+    private static final TtlCache<Optional<StandardCredentials>> LOOKUPS = new TtlCache<>(TTL_MILLIS, MAX_ENTRIES);
+
+    /**
+     * Looks up credentials when not found in the cache.
+     */
+    interface Lookup<C extends StandardCredentials> {
+        @CheckForNull
+        C lookup();
+    }
+
+    /**
+     * @param context the context credentials are looked up from
+     * @param serverUrl the Gogs server the domain requirements are built from
+     * @param id the credentials id
+     * @param type the expected type of credentials, also distinguishing lookups using different matchers
+     * @param lookup the actual lookup
+     * @return the credentials, or null if none match
+     */
+    @CheckForNull
+    static <C extends StandardCredentials> C get(@CheckForNull SCMSourceOwner context, @CheckForNull String serverUrl,
+                                                 @NonNull String id, @NonNull Class<C> type, @NonNull Lookup<C> lookup) {
+        if (!LOOKUPS.isEnabled()) {
+            return lookup.lookup();
+        }
+        String key = TtlCache.key(context == null ? null : context.getFullName(), serverUrl, id, type.getName());
+        Optional<StandardCredentials> cached = LOOKUPS.get(key);
+        if (cached != null) {
+            return type.cast(cached.orNull());
+        }
+        C credentials = lookup.lookup();
+        LOOKUPS.put(key, Optional.<StandardCredentials>fromNullable(credentials));
+        return credentials;
+    }
+
+    static void clear() {
+        LOOKUPS.clear();
+    }
+
+    /**
+     * Drops the cache whenever a credentials store is saved.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof SystemCredentialsProvider || o instanceof User
+                    || (o instanceof AbstractFolder
+                        && ((AbstractFolder<?>) o).getProperties().get(FolderCredentialsProvider.FolderCredentialsProperty.class) != null)) {
+                LOGGER.log(Level.FINE, "Credentials may have changed in {0}, dropping cached lookups", file);
+                clear();
+            }
+        }
+
+    }
+
+    private CredentialsLookupCache() {}
+
+}
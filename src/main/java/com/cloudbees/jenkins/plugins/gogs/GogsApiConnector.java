@@ -30,6 +30,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 import com.cloudbees.jenkins.plugins.gogs.api.GogsApi;
+import com.cloudbees.jenkins.plugins.gogs.server.client.GogsRequestClass;
 import com.cloudbees.jenkins.plugins.gogs.server.client.GogsServerAPIClient;
 import com.cloudbees.plugins.credentials.CredentialsMatcher;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
@@ -61,6 +62,10 @@ public class GogsApiConnector {
         return new GogsServerAPIClient(serverUrl, owner, repository, creds);
     }
 
+    public GogsApi create(String owner, String repository, StandardUsernamePasswordCredentials creds, GogsRequestClass requestClass) {
+        return new GogsServerAPIClient(serverUrl, owner, repository, creds, requestClass);
+    }
+
     public GogsApi create(String owner, StandardUsernamePasswordCredentials creds) {
         return new GogsServerAPIClient(serverUrl, owner, creds);
     }
@@ -73,36 +78,48 @@ public class GogsApiConnector {
         return new GogsServerAPIClient(apiUri, owner, repositoryName, credentials);
     }
 
+    public static @Nonnull GogsApi connect(@CheckForNull String apiUri, @CheckForNull String owner, @CheckForNull String repositoryName, @CheckForNull StandardUsernamePasswordCredentials credentials, @Nonnull GogsRequestClass requestClass) throws IOException {
+        return new GogsServerAPIClient(apiUri, owner, repositoryName, credentials, requestClass);
+    }
+
     @CheckForNull 
-    public <T extends StandardCredentials> T lookupCredentials(@CheckForNull SCMSourceOwner context, @CheckForNull String id, Class<T> type) {
+    public <T extends StandardCredentials> T lookupCredentials(@CheckForNull final SCMSourceOwner context, @CheckForNull final String id, final Class<T> type) {
         if (Util.fixEmpty(id) == null) {
             return null;
         } else {
-            if (id != null) {
-                return CredentialsMatchers.firstOrNull(
-                          CredentialsProvider.lookupCredentials(type, context, ACL.SYSTEM,
-                          gogsDomainRequirements()),
-                          CredentialsMatchers.allOf(
-                              CredentialsMatchers.withId(id),
-                              CredentialsMatchers.anyOf(CredentialsMatchers.instanceOf(type))));
-            }
-            return null;
+            return CredentialsLookupCache.get(context, serverUrl, id, type, new CredentialsLookupCache.Lookup<T>() {
+                @Override
+                public T lookup() {
+                    return CredentialsMatchers.firstOrNull(
+                              CredentialsProvider.lookupCredentials(type, context, ACL.SYSTEM,
+                              gogsDomainRequirements()),
+                              CredentialsMatchers.allOf(
+                                  CredentialsMatchers.withId(id),
+                                  CredentialsMatchers.anyOf(CredentialsMatchers.instanceOf(type))));
+                }
+            });
         }
     }
 
-    public static @CheckForNull StandardUsernamePasswordCredentials lookupScanCredentials(@CheckForNull SCMSourceOwner context, @CheckForNull String apiUri, @CheckForNull String scanCredentialsId) {
+    public static @CheckForNull StandardUsernamePasswordCredentials lookupScanCredentials(@CheckForNull final SCMSourceOwner context, @CheckForNull final String apiUri, @CheckForNull final String scanCredentialsId) {
         if (Util.fixEmpty(scanCredentialsId) == null) {
             return null;
         } else {
-            return CredentialsMatchers.firstOrNull(
-                    CredentialsProvider.lookupCredentials(
-                            StandardUsernamePasswordCredentials.class,
-                            context,
-                            ACL.SYSTEM,
-                            gogsDomainRequirements(apiUri)
-                    ),
-                    CredentialsMatchers.allOf(CredentialsMatchers.withId(scanCredentialsId), gogsCredentialsMatcher())
-            );
+            return CredentialsLookupCache.get(context, apiUri, scanCredentialsId, StandardUsernamePasswordCredentials.class,
+                    new CredentialsLookupCache.Lookup<StandardUsernamePasswordCredentials>() {
+                @Override
+                public StandardUsernamePasswordCredentials lookup() {
+                    return CredentialsMatchers.firstOrNull(
+                            CredentialsProvider.lookupCredentials(
+                                    StandardUsernamePasswordCredentials.class,
+                                    context,
+                                    ACL.SYSTEM,
+                                    gogsDomainRequirements(apiUri)
+                            ),
+                            CredentialsMatchers.allOf(CredentialsMatchers.withId(scanCredentialsId), gogsCredentialsMatcher())
+                    );
+                }
+            });
         }
     }
 
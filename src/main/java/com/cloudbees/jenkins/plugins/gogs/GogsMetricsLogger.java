@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+
+/**
+ * Publishes the counters of the plugin (request throttling, hook queue, duplicate deliveries, notifications) in the
+ * system log, at INFO level. Each component registers a {@link Report} and resets its counters whenever it is
+ * drained, so every line covers one period; components with nothing to report are skipped.
+ *
+ * The period can be tuned with the system property
+ * {@code com.cloudbees.jenkins.plugins.gogs.GogsMetricsLogger.periodMinutes} (default 10).
+ */
+@Extension
+public class GogsMetricsLogger extends PeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(GogsMetricsLogger.class.getName());
+
+    static final long PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(
+            Math.max(1, Integer.getInteger(GogsMetricsLogger.class.getName() + ".periodMinutes", 10)));
+
+    private static final List<Report> REPORTS = new CopyOnWriteArrayList<>();
+
+    /**
+     * The counters of one component.
+     */
+    public interface Report {
+
+        /**
+         * Resets the counters.
+         *
+         * @return what the counters measured since the previous call, or null if there is nothing to report
+         */
+        @CheckForNull
+        String drain();
+
+    }
+
+    /**
+     * Adds a report to the periodic log.
+     *
+     * @param report the report, drained once per period from now on
+     */
+    public static void register(@NonNull Report report) {
+        REPORTS.add(report);
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return PERIOD_MILLIS;
+    }
+
+    @Override
+    protected void doRun() {
+        for (Report report : REPORTS) {
+            String line = report.drain();
+            if (line != null) {
+                LOGGER.info(line);
+            }
+        }
+    }
+
+}
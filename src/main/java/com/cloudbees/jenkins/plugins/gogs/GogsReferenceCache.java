@@ -0,0 +1,347 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.URIish;
+import org.jenkinsci.plugins.gitclient.CloneCommand;
+import org.jenkinsci.plugins.gitclient.Git;
+import org.jenkinsci.plugins.gitclient.GitClient;
+import org.jenkinsci.plugins.gitclient.JGitTool;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.git.GitException;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import hudson.plugins.git.extensions.GitSCMExtensionDescriptor;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Keeps a bare mirror of the repository on each agent and clones new workspaces with it as a reference repository,
+ * so only the objects missing from the mirror are downloaded from Gogs.
+ *
+ * Once the checkout completes the workspace is dissociated from the mirror, like {@code git clone --dissociate}
+ * does: the borrowed objects are repacked into the workspace and its alternates file is removed, so deleting a mirror
+ * never breaks a workspace. Workspaces that could not be dissociated keep their mirror marked as in use.
+ *
+ * Mirrors live under {@code gogs-mirrors} in the agent root directory, one per remote URL. Once a mirror has been
+ * refreshed, the least recently used mirrors are deleted until the cache fits in its disk budget. Each deletion
+ * takes the lock of the mirror, and mirrors used in the last hours are never deleted.
+ *
+ * The budget and the protection delay can be tuned with the system properties
+ * {@code com.cloudbees.jenkins.plugins.gogs.GogsReferenceCache.maxSizeMB} (default 10240) and
+ * {@code com.cloudbees.jenkins.plugins.gogs.GogsReferenceCache.minIdleHours} (default 24).
+ */
+public class GogsReferenceCache extends GitSCMExtension {
+
+    private static final String CACHE_DIR = "gogs-mirrors";
+
+    private static final String LAST_USED_MARKER = "jenkins-last-used";
+
+    private static final String ALTERNATES = ".git/objects/info/alternates";
+
+    static final long MAX_SIZE_BYTES = Math.max(0L, Long.getLong(GogsReferenceCache.class.getName() + ".maxSizeMB", 10240L)) * 1024 * 1024;
+
+    static final long MIN_IDLE_MILLIS = TimeUnit.HOURS.toMillis(
+            Math.max(0L, Long.getLong(GogsReferenceCache.class.getName() + ".minIdleHours", 24L)));
+
+    /**
+     * Serializes the updates and the deletion of a mirror, keyed by node name and mirror path.
+     */
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    @DataBoundConstructor
+    public GogsReferenceCache() {
+    }
+
+    @Override
+    public void decorateCloneCommand(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener, CloneCommand cmd)
+            throws IOException, InterruptedException, GitException {
+        Computer computer = git.getWorkTree().toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        FilePath root = node != null ? node.getRootPath() : null;
+        if (node == null || root == null || scm.getUserRemoteConfigs().isEmpty()) {
+            return;
+        }
+        if (isJGit(scm.getGitExe(node, listener))) {
+            // the workspace could not be dissociated from the mirror afterwards
+            return;
+        }
+        UserRemoteConfig remote = scm.getUserRemoteConfigs().get(0);
+        FilePath cache = root.child(CACHE_DIR);
+        FilePath mirror = cache.child(Util.getDigestOf(remote.getUrl()));
+        try {
+            synchronized (lockFor(node, mirror)) {
+                updateMirror(scm, build, node, mirror, remote, listener);
+            }
+        } catch (GitException e) {
+            listener.getLogger().println("Could not update the reference mirror of " + remote.getUrl() + ", cloning without it: " + e.getMessage());
+            return;
+        }
+        cmd.reference(mirror.getRemote());
+        try {
+            evict(node, cache, listener);
+        } catch (IOException e) {
+            listener.getLogger().println("Could not trim the reference mirrors: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onCheckoutCompleted(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener)
+            throws IOException, InterruptedException, GitException {
+        FilePath workTree = git.getWorkTree();
+        FilePath alternates = workTree.child(ALTERNATES);
+        if (!alternates.exists() || !alternates.readToString().contains(CACHE_DIR)) {
+            return;
+        }
+        Computer computer = workTree.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        if (node == null) {
+            return;
+        }
+        String gitExe = scm.getGitExe(node, listener);
+        int status = isJGit(gitExe) ? -1 : node.createLauncher(listener).launch()
+                .cmds(gitExe, "repack", "-a", "-d", "-q")
+                .pwd(workTree)
+                .stdout(listener)
+                .join();
+        if (status == 0) {
+            alternates.delete();
+            return;
+        }
+        listener.getLogger().println("Could not dissociate " + workTree.getRemote() + " from its reference mirror, keeping the mirror");
+        for (String path : alternates.readToString().split("\\r?\\n")) {
+            if (path.contains(CACHE_DIR)) {
+                // alternates point to <mirror>/objects
+                FilePath mirror = new FilePath(workTree.getChannel(), path.trim()).getParent();
+                if (mirror != null) {
+                    synchronized (lockFor(node, mirror)) {
+                        mirror.child(LAST_USED_MARKER).touch(System.currentTimeMillis());
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isJGit(String gitExe) {
+        return gitExe == null || gitExe.startsWith(JGitTool.MAGIC_EXENAME);
+    }
+
+    private static Object lockFor(Node node, FilePath mirror) {
+        String key = node.getNodeName() + ":" + mirror.getRemote();
+        Object lock = new Object();
+        Object existing = LOCKS.putIfAbsent(key, lock);
+        return existing != null ? existing : lock;
+    }
+
+    private static void updateMirror(GitSCM scm, Run<?, ?> build, Node node, FilePath mirror, UserRemoteConfig remote,
+                                     TaskListener listener) throws IOException, InterruptedException {
+        listener.getLogger().println("Updating reference mirror " + mirror.getRemote() + " of " + remote.getUrl());
+        mirror.mkdirs();
+        GitClient client = Git.with(listener, build.getEnvironment(listener))
+                .in(mirror)
+                .using(scm.getGitExe(node, listener))
+                .getClient();
+        StandardUsernameCredentials credentials = lookupCredentials(build, remote);
+        if (credentials != null) {
+            client.addDefaultCredentials(credentials);
+        }
+        if (!client.hasGitRepo()) {
+            client.init_().workspace(mirror.getRemote()).bare(true).execute();
+        }
+        List<RefSpec> refSpecs = Arrays.asList(new RefSpec("+refs/heads/*:refs/heads/*"),
+                new RefSpec("+refs/pull/*/head:refs/pull/*/head"));
+        try {
+            client.fetch_().from(new URIish(remote.getUrl()), refSpecs).prune().execute();
+        } catch (URISyntaxException e) {
+            throw new GitException("Invalid remote URL " + remote.getUrl(), e);
+        }
+        mirror.child(LAST_USED_MARKER).touch(System.currentTimeMillis());
+    }
+
+    @CheckForNull
+    private static StandardUsernameCredentials lookupCredentials(Run<?, ?> build, UserRemoteConfig remote) {
+        String credentialsId = remote.getCredentialsId();
+        if (credentialsId == null) {
+            return null;
+        }
+        return CredentialsProvider.findCredentialById(credentialsId, StandardUsernameCredentials.class, build,
+                URIRequirementBuilder.fromUri(remote.getUrl()).build());
+    }
+
+    /**
+     * Deletes the least recently used mirrors of a cache directory until it fits in its budget.
+     */
+    private static void evict(Node node, FilePath cache, TaskListener listener) throws IOException, InterruptedException {
+        List<MirrorUsage> mirrors = cache.act(new Survey());
+        long total = 0;
+        for (MirrorUsage mirror : mirrors) {
+            total += mirror.size;
+        }
+        if (total <= MAX_SIZE_BYTES) {
+            return;
+        }
+        Collections.sort(mirrors, new Comparator<MirrorUsage>() {
+            @Override
+            public int compare(MirrorUsage a, MirrorUsage b) {
+                return a.lastUsed < b.lastUsed ? -1 : (a.lastUsed == b.lastUsed ? 0 : 1);
+            }
+        });
+        for (MirrorUsage usage : mirrors) {
+            if (total <= MAX_SIZE_BYTES || System.currentTimeMillis() - usage.lastUsed < MIN_IDLE_MILLIS) {
+                break;
+            }
+            FilePath mirror = cache.child(usage.name);
+            synchronized (lockFor(node, mirror)) {
+                // the survey may be stale by the time the lock is held, the marker is checked again
+                if (mirror.act(new DeleteIfIdle(MIN_IDLE_MILLIS))) {
+                    listener.getLogger().println("Deleted reference mirror " + mirror.getRemote());
+                    total -= usage.size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Size and last use of one mirror.
+     */
+    private static final class MirrorUsage implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        private final long size;
+
+        private final long lastUsed;
+
+        MirrorUsage(String name, long size, long lastUsed) {
+            this.name = name;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+
+    }
+
+    /**
+     * Lists the mirrors of a cache directory with their size and last use.
+     */
+    private static final class Survey extends MasterToSlaveFileCallable<List<MirrorUsage>> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public List<MirrorUsage> invoke(File cache, VirtualChannel channel) throws IOException, InterruptedException {
+            List<MirrorUsage> result = new ArrayList<>();
+            File[] mirrors = cache.listFiles();
+            if (mirrors != null) {
+                for (File mirror : mirrors) {
+                    if (mirror.isDirectory()) {
+                        result.add(new MirrorUsage(mirror.getName(), sizeOf(mirror), lastUsed(mirror)));
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static long sizeOf(File file) {
+            File[] children = file.listFiles();
+            if (children == null) {
+                return file.length();
+            }
+            long size = 0;
+            for (File child : children) {
+                size += sizeOf(child);
+            }
+            return size;
+        }
+
+    }
+
+    /**
+     * Deletes a mirror unless it was used recently.
+     */
+    private static final class DeleteIfIdle extends MasterToSlaveFileCallable<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long minIdleMillis;
+
+        DeleteIfIdle(long minIdleMillis) {
+            this.minIdleMillis = minIdleMillis;
+        }
+
+        @Override
+        public Boolean invoke(File mirror, VirtualChannel channel) throws IOException, InterruptedException {
+            if (!mirror.isDirectory() || System.currentTimeMillis() - lastUsed(mirror) < minIdleMillis) {
+                return false;
+            }
+            Util.deleteRecursive(mirror);
+            return true;
+        }
+
+    }
+
+    private static long lastUsed(File mirror) {
+        return new File(mirror, LAST_USED_MARKER).lastModified();
+    }
+
+    @Extension
+    public static class DescriptorImpl extends GitSCMExtensionDescriptor {
+
+        @Override
+        public String getDisplayName() {
+            return "Clone with a reference mirror cached on the agent";
+        }
+
+    }
+
+}
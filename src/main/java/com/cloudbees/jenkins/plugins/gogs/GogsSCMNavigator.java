@@ -24,11 +24,19 @@
 package com.cloudbees.jenkins.plugins.gogs;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 import javax.annotation.CheckForNull;
 
+import org.acegisecurity.Authentication;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -38,6 +46,8 @@ import org.kohsuke.stapler.QueryParameter;
 import com.cloudbees.jenkins.plugins.gogs.api.GogsApi;
 import com.cloudbees.jenkins.plugins.gogs.api.GogsRepository;
 import com.cloudbees.jenkins.plugins.gogs.api.GogsOrganization;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsRequestException;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsVisitor;
 import com.cloudbees.plugins.credentials.CredentialsNameProvider;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
@@ -46,8 +56,13 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.Util;
 import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import jenkins.branch.MultiBranchProjectFactory;
+import jenkins.branch.OrganizationFolder;
+import jenkins.model.Jenkins;
 import jenkins.scm.api.SCMNavigator;
 import jenkins.scm.api.SCMNavigatorDescriptor;
 import jenkins.scm.api.SCMSourceObserver;
@@ -55,6 +70,8 @@ import jenkins.scm.api.SCMSourceOwner;
 
 public class GogsSCMNavigator extends SCMNavigator {
 
+    private static final Logger LOGGER = Logger.getLogger(GogsSCMNavigator.class.getName());
+
     private final String repoOwner;
     private final String credentialsId;
     private final String checkoutCredentialsId;
@@ -64,6 +81,11 @@ public class GogsSCMNavigator extends SCMNavigator {
     private String gogsServerUrl;
     private int sshPort = -1;
 
+    /**
+     * Number of repositories prepared concurrently during a scan. 1 (or less) means sequential.
+     */
+    private int scanThreads = 1;
+
     /**
      * Gogs API client connector.
      */
@@ -127,6 +149,15 @@ public class GogsSCMNavigator extends SCMNavigator {
         this.sshPort = sshPort;
     }
 
+    public int getScanThreads() {
+        return Math.max(1, scanThreads);
+    }
+
+    @DataBoundSetter
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = Math.max(1, scanThreads);
+    }
+
     @DataBoundSetter
     public void setGogsServerUrl(String url) {
         this.gogsServerUrl = Util.fixEmpty(url);
@@ -159,8 +190,8 @@ public class GogsSCMNavigator extends SCMNavigator {
     }
 
     @Override
-    public void visitSources(SCMSourceObserver observer) throws IOException, InterruptedException {
-        TaskListener listener = observer.getListener();
+    public void visitSources(final SCMSourceObserver observer) throws IOException, InterruptedException {
+        final TaskListener listener = observer.getListener();
 
         if (StringUtils.isBlank(repoOwner)) {
             listener.getLogger().format("Must specify a repository owner%n");
@@ -174,35 +205,141 @@ public class GogsSCMNavigator extends SCMNavigator {
         } else {
             listener.getLogger().format("Connecting to %s using %s%n", gogsServerUrl == null ? "https://gogs.org" : gogsServerUrl, CredentialsNameProvider.name(credentials));
         }
-        List<? extends GogsRepository> repositories;
         GogsApi gogs = getGogsConnector().create(repoOwner, credentials);
         GogsOrganization organization = gogs.getOrganization();
         if (organization != null) {
             // Navigate repositories of the team
             listener.getLogger().format("Looking up repositories of organization %s%n", repoOwner);
-            repositories = gogs.getRepositories();
         } else {
             // Navigate the repositories of the repoOwner as a user
             listener.getLogger().format("Looking up repositories of user %s%n", repoOwner);
-            repositories = gogs.getRepositories();
         }
-        for (GogsRepository repo : repositories) {
-            add(listener, observer, repo);
+        // Repositories are proposed as they are read, the full listing is never held in memory
+        if (getScanThreads() > 1) {
+            visitInParallel(gogs, listener, observer);
+        } else {
+            gogs.visitRepositories(new GogsVisitor<GogsRepository>() {
+                @Override
+                public boolean visit(@NonNull GogsRepository repo) throws IOException, InterruptedException {
+                    add(listener, observer, repo);
+                    return true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Prepares repositories using {@link #getScanThreads()} workers, and proposes them from the calling thread.
+     *
+     * Deciding whether a repository becomes a project means probing its heads, which is what makes organization
+     * scans slow. The workers run that recognition ahead of time with the project factories of the organization
+     * folder, and the probe answers land in the {@link ProbeResultCache} of the folder. The {@link SCMSourceObserver}
+     * makes no promise of being thread-safe (the folder children are updated without synchronization), so
+     * {@code observe}, {@code addSource} and {@code complete} are only called from the scan thread, in listing order,
+     * where the recognition replays the cached probe answers instead of asking Gogs again.
+     *
+     * Every repository logs into its own buffer, which is copied to the scan log in listing order as well, so the
+     * output reads exactly like a sequential scan.
+     */
+    private void visitInParallel(GogsApi gogs, final TaskListener listener, final SCMSourceObserver observer)
+            throws IOException, InterruptedException {
+        final int threads = getScanThreads();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new NamingThreadFactory(new DaemonThreadFactory(), GogsSCMNavigator.class.getName() + " " + repoOwner));
+        final Deque<Prepared> pending = new ArrayDeque<>();
+        final Authentication auth = Jenkins.getAuthentication();
+        try {
+            gogs.visitRepositories(new GogsVisitor<GogsRepository>() {
+                @Override
+                public boolean visit(@NonNull final GogsRepository repo) throws IOException, InterruptedException {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    pending.add(new Prepared(repo.getRepositoryName(), BufferedLogTask.submit(executor, auth,
+                            new BufferedLogTask.Work<Boolean>() {
+                                @Override
+                                public Boolean run(@NonNull TaskListener repoListener) throws Exception {
+                                    return prepare(repoListener, observer, repo.getRepositoryName());
+                                }
+                            })));
+                    // keep the workers busy, but do not read the listing too far ahead of them
+                    while (pending.size() >= threads * 2) {
+                        pending.poll().propose(listener, observer);
+                    }
+                    return true;
+                }
+            });
+            while (!pending.isEmpty()) {
+                pending.poll().propose(listener, observer);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks the pattern and runs the recognition of a repository by the organization folder, filling the probe
+     * cache the scan thread then reads.
+     *
+     * @return true if the repository should be proposed
+     */
+    private boolean prepare(TaskListener listener, SCMSourceObserver observer, String name)
+            throws IOException, InterruptedException {
+        if (!matches(listener, name)) {
+            return false;
+        }
+        SCMSourceOwner context = observer.getContext();
+        if (!(context instanceof OrganizationFolder)) {
+            return true;
+        }
+        OrganizationFolder folder = (OrganizationFolder) context;
+        List<GogsSCMSource> sources = Collections.singletonList(createSource(context, name));
+        try {
+            for (MultiBranchProjectFactory factory : folder.getProjectFactories()) {
+                // the scan thread logs the recognition when it replays it
+                if (factory.recognizes(folder, name, sources, Collections.<String, Object>emptyMap(), TaskListener.NULL)) {
+                    break;
+                }
+            }
+        } catch (IOException | GogsRequestException e) {
+            // the scan thread reports it when recognizing the repository again
+            LOGGER.log(Level.FINE, "Could not recognize " + repoOwner + "/" + name + " ahead of its scan", e);
         }
+        return true;
     }
 
     private void add(TaskListener listener, SCMSourceObserver observer, GogsRepository repo) throws InterruptedException {
         String name = repo.getRepositoryName();
+        if (matches(listener, name)) {
+            propose(listener, observer, name);
+        }
+    }
+
+    private boolean matches(TaskListener listener, String name) {
         if (!Pattern.compile(pattern).matcher(name).matches()) {
             listener.getLogger().format("Ignoring %s%n", name);
-            return;
+            return false;
         }
+        return true;
+    }
+
+    private void propose(TaskListener listener, SCMSourceObserver observer, String name) throws InterruptedException {
         listener.getLogger().format("Proposing %s%n", name);
         if (Thread.interrupted()) {
             throw new InterruptedException();
         }
         SCMSourceObserver.ProjectObserver projectObserver = observer.observe(name);
+        projectObserver.addSource(createSource(observer.getContext(), name));
+        projectObserver.complete();
+    }
+
+    /**
+     * Creates the source of a repository. It is owned by the organization folder until a project adopts it, so the
+     * probes run while recognizing it share the {@link ProbeResultCache} of the folder.
+     */
+    private GogsSCMSource createSource(SCMSourceOwner context, String name) {
         GogsSCMSource scmSource = new GogsSCMSource(null, repoOwner, name);
+        scmSource.setOwner(context);
         scmSource.setGogsConnector(getGogsConnector());
         scmSource.setCredentialsId(credentialsId);
         scmSource.setCheckoutCredentialsId(checkoutCredentialsId);
@@ -210,8 +347,33 @@ public class GogsSCMNavigator extends SCMNavigator {
         scmSource.setAutoCreateIssues(isAutoCreateIssues());
         scmSource.setGogsServerUrl(gogsServerUrl);
         scmSource.setSshPort(sshPort);
-        projectObserver.addSource(scmSource);
-        projectObserver.complete();
+        return scmSource;
+    }
+
+    /**
+     * A repository being prepared by a worker of {@link #visitInParallel}.
+     */
+    private final class Prepared {
+
+        private final String name;
+
+        private final BufferedLogTask<Boolean> matched;
+
+        Prepared(String name, BufferedLogTask<Boolean> matched) {
+            this.name = name;
+            this.matched = matched;
+        }
+
+        /**
+         * Waits for the worker, copies its log and proposes the repository if it matched. Only called from the scan
+         * thread.
+         */
+        void propose(TaskListener listener, SCMSourceObserver observer) throws IOException, InterruptedException {
+            if (matched.await(listener)) {
+                GogsSCMNavigator.this.propose(listener, observer, name);
+            }
+        }
+
     }
 
     @Extension 
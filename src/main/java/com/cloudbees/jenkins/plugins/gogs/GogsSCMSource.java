@@ -25,6 +25,10 @@ package com.cloudbees.jenkins.plugins.gogs;
 
 import com.cloudbees.jenkins.plugins.gogs.api.GogsApi;
 import com.cloudbees.jenkins.plugins.gogs.api.GogsBranch;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsCommit;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsPullRequest;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsVisitor;
+import com.cloudbees.jenkins.plugins.gogs.server.client.GogsRequestClass;
 import com.cloudbees.jenkins.plugins.sshcredentials.SSHUserPrivateKey;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsNameProvider;
@@ -38,12 +42,18 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.Util;
 import hudson.model.TaskListener;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.SubmoduleConfig;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.plugins.git.extensions.GitSCMExtension;
 import hudson.scm.SCM;
 import hudson.security.ACL;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
 import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.scm.api.*;
+import org.acegisecurity.Authentication;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.jgit.transport.RefSpec;
 import org.kohsuke.stapler.AncestorInPath;
@@ -54,12 +64,17 @@ import org.kohsuke.stapler.QueryParameter;
 import javax.annotation.Nonnull;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -130,6 +145,21 @@ public class GogsSCMSource extends AbstractGitSCMSource {
      */
     private int buildFailureLabelId = -1;
 
+    /**
+     * If true, builds only fetch the refs of the head being built instead of every branch and pull request.
+     */
+    private boolean narrowRefSpecs = false;
+
+    /**
+     * If true, builds clone through a mirror of the repository kept on each agent, see {@link GogsReferenceCache}.
+     */
+    private boolean referenceCache = false;
+
+    /**
+     * If true, resolving a head always reads it from Gogs instead of using {@link HeadRevisionCache}.
+     */
+    private boolean strictHeadRevision = false;
+
     /**
      * Gogs API client connector.
      */
@@ -228,6 +258,33 @@ public class GogsSCMSource extends AbstractGitSCMSource {
         this.buildFailureLabelId = buildFailureLabelId;
     }
 
+    public boolean isNarrowRefSpecs() {
+        return narrowRefSpecs;
+    }
+
+    @DataBoundSetter
+    public void setNarrowRefSpecs(boolean narrowRefSpecs) {
+        this.narrowRefSpecs = narrowRefSpecs;
+    }
+
+    public boolean isReferenceCache() {
+        return referenceCache;
+    }
+
+    @DataBoundSetter
+    public void setReferenceCache(boolean referenceCache) {
+        this.referenceCache = referenceCache;
+    }
+
+    public boolean isStrictHeadRevision() {
+        return strictHeadRevision;
+    }
+
+    @DataBoundSetter
+    public void setStrictHeadRevision(boolean strictHeadRevision) {
+        this.strictHeadRevision = strictHeadRevision;
+    }
+
     @DataBoundSetter
     public void setGogsServerUrl(String url) {
         this.gogsServerUrl = Util.fixEmpty(url);
@@ -263,73 +320,331 @@ public class GogsSCMSource extends AbstractGitSCMSource {
         return getGogsConnector().create(repoOwner, repository, getScanCredentials());
     }
 
+    /**
+     * @return a new connection for one retrieval, see {@link GogsScanSession}
+     */
+    private GogsScanSession newScanSession() {
+        return newScanSession(GogsRequestClass.SCAN);
+    }
+
+    /**
+     * @param requestClass what the requests of the retrieval are made for
+     * @return a new connection for one retrieval, see {@link GogsScanSession}
+     */
+    private GogsScanSession newScanSession(GogsRequestClass requestClass) {
+        return new GogsScanSession(getGogsConnector(), repoOwner, repository, getScanCredentials(), requestClass);
+    }
+
     @Override
-    protected void retrieve(SCMHeadObserver observer, final TaskListener listener) throws IOException,
-            InterruptedException {
+    protected void retrieve(@CheckForNull SCMSourceCriteria criteria, @NonNull SCMHeadObserver observer,
+                            @CheckForNull SCMHeadEvent<?> event, @NonNull final TaskListener listener)
+            throws IOException, InterruptedException {
 
-        StandardUsernamePasswordCredentials scanCredentials = getScanCredentials();
+        // hook triggered fetches do not queue behind scans
+        GogsScanSession session = newScanSession(event != null ? GogsRequestClass.EVENT : GogsRequestClass.SCAN);
+        StandardUsernamePasswordCredentials scanCredentials = session.getCredentials();
         if (scanCredentials == null) {
             listener.getLogger().format("Connecting to %s with no credentials, anonymous access%n", gogsServerUrl == null ? "https://gogs.org" : gogsServerUrl);
         } else {
             listener.getLogger().format("Connecting to %s using %s%n", gogsServerUrl == null ? "https://gogs.org" : gogsServerUrl, CredentialsNameProvider.name(scanCredentials));
         }
 
-        // Search branches
-        retrieveBranches(observer, listener);
+        // Search branches and pull requests
+        try {
+            retrieveHeads(session, criteria, observer, listener);
+        } finally {
+            ProbeResultCache probeCache = ProbeResultCache.of(getOwner());
+            if (probeCache != null) {
+                probeCache.save();
+            }
+        }
     }
 
-    private void retrieveBranches(@NonNull final SCMHeadObserver observer, @NonNull TaskListener listener)
+    private void retrieveHeads(@NonNull final GogsScanSession session, @CheckForNull final SCMSourceCriteria criteria,
+                               @NonNull final SCMHeadObserver observer, @NonNull final TaskListener listener)
             throws IOException, InterruptedException {
-        String fullName = repoOwner + "/" + repository;
-        listener.getLogger().println("Looking up " + fullName + " for branches");
-
-        final GogsApi gogs = getGogsConnector().create(repoOwner, repository, getScanCredentials());
-        List<? extends GogsBranch> branches = gogs.getBranches();
-        for (GogsBranch branch : branches) {
-            listener.getLogger().println("Checking branch " + branch.getName() + " from " + fullName);
-            final String branchName = branch.getName();
-            if (isExcluded(branchName)) {
-                continue;
-            }
-            SCMSourceCriteria criteria = getCriteria();
-            if (criteria != null) {
-                SCMSourceCriteria.Probe probe = getProbe(branchName, "branch", listener);
-                if (criteria.isHead(probe, listener)) {
-                    listener.getLogger().format("    Met criteria%n");
-                } else {
-                    listener.getLogger().format("    Does not meet criteria%n");
+        final String fullName = repoOwner + "/" + repository;
+        final GogsApi gogs = session.getClient();
+        final List<Candidate> candidates = new ArrayList<>();
+        Set<SCMHead> includes = observer.getIncludes();
+        if (includes != null) {
+            // Targeted fetch (e.g. a hook event): only look up the requested heads instead of listing them all
+            for (SCMHead head : includes) {
+                Integer pullRequestId = getPullRequestId(head);
+                if (pullRequestId != null) {
+                    listener.getLogger().println("Looking up pull request " + head.getName() + " from " + fullName);
+                    GogsPullRequest pull = gogs.getPullRequest(pullRequestId);
+                    Candidate candidate = pull != null && pull.isOpen() ? pullRequestCandidate(session, pull, listener) : null;
+                    if (candidate == null) {
+                        listener.getLogger().format("    Pull request is closed or no longer exists%n");
+                        continue;
+                    }
+                    candidates.add(candidate);
                     continue;
                 }
+                if (isExcluded(head.getName())) {
+                    continue;
+                }
+                listener.getLogger().println("Looking up branch " + head.getName() + " from " + fullName);
+                GogsBranch branch = session.getBranch(head.getName());
+                if (branch == null || branch.getCommit() == null) {
+                    listener.getLogger().format("    Branch no longer exists%n");
+                    continue;
+                }
+                candidates.add(new Candidate(new SCMHead(branch.getName()), branch.getCommit(), "branch"));
             }
-            SCMHead head = new SCMHead(branchName);
-            SCMRevision hash = new AbstractGitSCMSource.SCMRevisionImpl(head, branch.getCommit().getHash());
-            observer.observe(head, hash);
+        } else {
+            listener.getLogger().println("Looking up " + fullName + " for branches");
+            if (criteria == null) {
+                gogs.visitBranches(new GogsVisitor<GogsBranch>() {
+                    @Override
+                    public boolean visit(@NonNull GogsBranch branch) throws IOException, InterruptedException {
+                        listener.getLogger().println("Checking branch " + branch.getName() + " from " + fullName);
+                        if (isExcluded(branch.getName())) {
+                            return true;
+                        }
+                        observe(observer, new SCMHead(branch.getName()), branch.getCommit());
+                        return observer.isObserving();
+                    }
+                });
+                if (!observer.isObserving()) {
+                    return;
+                }
+            } else {
+                gogs.visitBranches(new GogsVisitor<GogsBranch>() {
+                    @Override
+                    public boolean visit(@NonNull GogsBranch branch) {
+                        if (!isExcluded(branch.getName())) {
+                            candidates.add(new Candidate(new SCMHead(branch.getName()), branch.getCommit(), "branch"));
+                        }
+                        return true;
+                    }
+                });
+            }
+            listener.getLogger().println("Looking up " + fullName + " for pull requests");
+            for (GogsPullRequest pull : gogs.getPullRequests()) {
+                Candidate candidate = pullRequestCandidate(session, pull, listener);
+                if (candidate != null) {
+                    candidates.add(candidate);
+                }
+            }
+        }
 
+        if (criteria == null) {
+            for (Candidate candidate : candidates) {
+                observe(observer, candidate.head, candidate.commit);
+                if (!observer.isObserving()) {
+                    return;
+                }
+            }
+            return;
         }
+
+        // Probe the heads concurrently, then observe the results in listing order. Only a few probes per scan are
+        // queued at a time, so a repository with many heads does not hold up the other scans on the same server, and
+        // heads past the point where the observer stops are never probed.
+        ExecutorService executor = BranchProbeExecutor.forServer(gogsServerUrl);
+        Authentication auth = Jenkins.getAuthentication();
+        Deque<HeadProbe> probes = new ArrayDeque<>();
+        try {
+            for (final Candidate candidate : candidates) {
+                BufferedLogTask<Boolean> met = BufferedLogTask.submit(executor, auth, new BufferedLogTask.Work<Boolean>() {
+                    @Override
+                    public Boolean run(@NonNull TaskListener headListener) throws Exception {
+                        headListener.getLogger().println("Checking " + candidate.thing + " " + candidate.head.getName() + " from " + fullName);
+                        SCMSourceCriteria.Probe probe = getProbe(session, candidate.commitOwner(repoOwner),
+                                candidate.commitRepository(repository), candidate.head.getName(), candidate.commit,
+                                candidate.thing, headListener);
+                        if (criteria.isHead(probe, headListener)) {
+                            headListener.getLogger().format("    Met criteria%n");
+                            return true;
+                        } else {
+                            headListener.getLogger().format("    Does not meet criteria%n");
+                            return false;
+                        }
+                    }
+                });
+                probes.add(new HeadProbe(candidate, met));
+                while (probes.size() >= BranchProbeExecutor.CONCURRENCY * 2) {
+                    if (!observe(observer, probes.poll(), listener)) {
+                        return;
+                    }
+                }
+            }
+            while (!probes.isEmpty()) {
+                if (!observe(observer, probes.poll(), listener)) {
+                    return;
+                }
+            }
+        } finally {
+            for (HeadProbe probe : probes) {
+                probe.met.cancel();
+            }
+        }
+    }
+
+    /**
+     * Waits for a probe, copies its log and observes its head if it met the criteria.
+     *
+     * @return false once the observer does not want more heads
+     */
+    private boolean observe(SCMHeadObserver observer, HeadProbe probe, TaskListener listener)
+            throws IOException, InterruptedException {
+        if (probe.met.await(listener)) {
+            observe(observer, probe.candidate.head, probe.candidate.commit);
+        }
+        return observer.isObserving();
     }
 
+    @CheckForNull
+    private static Integer getPullRequestId(SCMHead head) {
+        return head instanceof SCMHeadWithOwnerAndRepo ? ((SCMHeadWithOwnerAndRepo) head).getPullRequestId() : null;
+    }
 
     /**
-     * Returns a {@link jenkins.scm.api.SCMSourceCriteria.Probe} for use in {@link #retrieveBranches}.
+     * Resolves the head commit of a pull request from its source branch, which may live in a fork.
      *
-     * @param branch branch name
+     * @return the PR-[ID] head to observe, or null if the source branch is gone
+     */
+    @CheckForNull
+    private Candidate pullRequestCandidate(GogsScanSession session, GogsPullRequest pull, TaskListener listener)
+            throws InterruptedException {
+        SCMHeadWithOwnerAndRepo head = SCMHeadWithOwnerAndRepo.forPullRequest(pull, repoOwner, repository);
+        GogsBranch branch = session.getBranch(head.getRepoOwner(), head.getRepoName(), pull.getHeadBranch());
+        if (branch == null || branch.getCommit() == null) {
+            listener.getLogger().format("    Source branch %s of PR-%d no longer exists in %s/%s%n",
+                    pull.getHeadBranch(), pull.getNumber(), head.getRepoOwner(), head.getRepoName());
+            return null;
+        }
+        return new Candidate(head, branch.getCommit(), "pull request");
+    }
+
+    private void observe(SCMHeadObserver observer, SCMHead head, GogsCommit commit) throws IOException, InterruptedException {
+        HeadRevisionCache.put(gogsServerUrl, repoOwner, repository, head.getName(), commit.getHash());
+        SCMRevision hash = new AbstractGitSCMSource.SCMRevisionImpl(head, commit.getHash());
+        observer.observe(head, hash);
+    }
+
+    /**
+     * A branch or pull request head found while retrieving, with the commit it points to.
+     */
+    private static final class Candidate {
+
+        private final SCMHead head;
+
+        private final GogsCommit commit;
+
+        /**
+         * Readable name of what this is, e.g. {@code branch}.
+         */
+        private final String thing;
+
+        Candidate(SCMHead head, GogsCommit commit, String thing) {
+            this.head = head;
+            this.commit = commit;
+            this.thing = thing;
+        }
+
+        /**
+         * @return the owner of the repository holding the commit, the fork of a pull request or else the source one
+         */
+        String commitOwner(String sourceOwner) {
+            return head instanceof SCMHeadWithOwnerAndRepo ? ((SCMHeadWithOwnerAndRepo) head).getRepoOwner() : sourceOwner;
+        }
+
+        /**
+         * @return the name of the repository holding the commit, the fork of a pull request or else the source one
+         */
+        String commitRepository(String sourceRepository) {
+            return head instanceof SCMHeadWithOwnerAndRepo ? ((SCMHeadWithOwnerAndRepo) head).getRepoName() : sourceRepository;
+        }
+
+    }
+
+    /**
+     * A head whose criteria probe is running in a {@link BranchProbeExecutor}.
+     */
+    private static final class HeadProbe {
+
+        private final Candidate candidate;
+
+        private final BufferedLogTask<Boolean> met;
+
+        HeadProbe(Candidate candidate, BufferedLogTask<Boolean> met) {
+            this.candidate = candidate;
+            this.met = met;
+        }
+
+    }
+
+    /**
+     * Returns a {@link jenkins.scm.api.SCMSourceCriteria.Probe} for use in {@link #retrieveHeads}.
+     *
+     * @param branch the branch to probe
      * @param thing readable name of what this is, e.g. {@code branch}
      * @param listener A TaskListener to log useful information
      *
      * @return A {@link jenkins.scm.api.SCMSourceCriteria.Probe}
      */
-    protected SCMSourceCriteria.Probe getProbe(final String branch, final String thing, final TaskListener listener) {
+    protected SCMSourceCriteria.Probe getProbe(GogsBranch branch, String thing, TaskListener listener) {
+        return getProbe(branch.getName(), branch.getCommit(), thing, listener);
+    }
+
+    /**
+     * Returns a {@link jenkins.scm.api.SCMSourceCriteria.Probe} for use in {@link #retrieveHeads}.
+     *
+     * The probe looks at the exact commit listed for the head, not at whatever the head points to when the
+     * probe runs, so answers are stable and cached per commit in {@link ProbeResultCache}: a head whose commit did
+     * not move since the previous scan is probed without any request to Gogs. Otherwise paths are looked up in the
+     * tree listings of the commit, shared by every path probed, and checked one by one only on servers that can
+     * not list trees.
+     *
+     * @param name the head name
+     * @param commit the commit to probe
+     * @param thing readable name of what this is, e.g. {@code branch}
+     * @param listener A TaskListener to log useful information
+     *
+     * @return A {@link jenkins.scm.api.SCMSourceCriteria.Probe}
+     */
+    protected SCMSourceCriteria.Probe getProbe(String name, GogsCommit commit, String thing, TaskListener listener) {
+        return getProbe(newScanSession(), repoOwner, repository, name, commit, thing, listener);
+    }
+
+    /**
+     * @param owner the owner of the repository holding the commit
+     * @param repositoryName the name of the repository holding the commit
+     */
+    private SCMSourceCriteria.Probe getProbe(final GogsScanSession session, final String owner, final String repositoryName,
+                                             final String name, final GogsCommit commit,
+                                             final String thing, final TaskListener listener) {
+        final ProbeResultCache probeCache = ProbeResultCache.of(getOwner());
+        final String fullName = owner + "/" + repositoryName;
+        final String hash = commit.getHash();
         return new SCMSourceCriteria.Probe() {
             private static final long serialVersionUID = 5012552654534124387L;
             @Override public String name() {
-                return branch;
+                return name;
             }
             @Override public long lastModified() {
-                return 0; // TODO
+                return commit.getDateMillis();
             }
             @Override public boolean exists(@Nonnull String path) throws IOException {
-                final GogsApi gogs = getGogsConnector().create(repoOwner, repository, getScanCredentials());
-                boolean exists = gogs.checkPathExists(branch, path);
+                Boolean exists = probeCache != null ? probeCache.get(fullName, hash, path) : null;
+                if (exists == null) {
+                    try {
+                        exists = session.getTree(owner, repositoryName, hash).exists(path);
+                        if (exists == null) {
+                            exists = session.getClient(owner, repositoryName).checkPathExists(hash, path);
+                        }
+                    } catch (InterruptedException e) {
+                        // probes can only fail with an IOException, which the scan reports as a failure
+                        Thread.currentThread().interrupt();
+                        throw (IOException) new InterruptedIOException("Interrupted while probing " + path).initCause(e);
+                    }
+                    if (probeCache != null) {
+                        probeCache.put(fullName, hash, path, exists);
+                    }
+                }
 
                 if(exists) {
                     return true;
@@ -343,10 +658,28 @@ public class GogsSCMSource extends AbstractGitSCMSource {
 
     @Override
     protected SCMRevision retrieve(SCMHead head, TaskListener listener) throws IOException, InterruptedException {
-        GogsApi gogs = getGogsConnector().create(repoOwner, repository, getScanCredentials());
-        GogsBranch branch = gogs.getBranch(head.getName());
-        listener.getLogger().println("Retrieving HEAD for " + branch.getName() + " branch");
-        if (branch.getCommit() != null) {
+        String cachedHash = strictHeadRevision ? null : HeadRevisionCache.get(gogsServerUrl, repoOwner, repository, head.getName());
+        if (cachedHash != null) {
+            listener.getLogger().println("Using recently observed HEAD for " + head.getName());
+            return new AbstractGitSCMSource.SCMRevisionImpl(head, cachedHash);
+        }
+        GogsScanSession session = newScanSession();
+        Integer pullRequestId = getPullRequestId(head);
+        if (pullRequestId != null) {
+            listener.getLogger().println("Retrieving HEAD for pull request " + head.getName());
+            GogsPullRequest pull = session.getClient().getPullRequest(pullRequestId);
+            Candidate candidate = pull != null && pull.isOpen() ? pullRequestCandidate(session, pull, listener) : null;
+            if (candidate != null) {
+                HeadRevisionCache.put(gogsServerUrl, repoOwner, repository, head.getName(), candidate.commit.getHash());
+                return new AbstractGitSCMSource.SCMRevisionImpl(head, candidate.commit.getHash());
+            }
+            LOGGER.warning("No open pull request found in " + repoOwner + "/" + repository + " with name [" + head.getName() + "]");
+            return null;
+        }
+        listener.getLogger().println("Retrieving HEAD for " + head.getName() + " branch");
+        GogsBranch branch = session.getBranch(head.getName());
+        if (branch != null && branch.getCommit() != null) {
+            HeadRevisionCache.put(gogsServerUrl, repoOwner, repository, head.getName(), branch.getCommit().getHash());
             return new AbstractGitSCMSource.SCMRevisionImpl(head, branch.getCommit().getHash());
         }
         LOGGER.warning("No branch found in " + repoOwner + "/" + repository + " with name [" + head.getName() + "]");
@@ -356,12 +689,54 @@ public class GogsSCMSource extends AbstractGitSCMSource {
     @Override
     public SCM build(SCMHead head, SCMRevision revision) {
         LOGGER.info("Build HEAD for " + head.getName() + " branch");
+        SCM scm;
         if (revision == null) {
             // TODO will this work sanely for PRs? Branch.scm seems to be used only as a fallback for SCMBinder/SCMVar where they would perhaps better just report an error.
-            return super.build(head, null);
+            scm = super.build(head, null);
         } else {
-            return super.build(head, /* casting just as an assertion */(AbstractGitSCMSource.SCMRevisionImpl) revision);
+            scm = super.build(head, /* casting just as an assertion */(AbstractGitSCMSource.SCMRevisionImpl) revision);
+        }
+        if (!(narrowRefSpecs || referenceCache) || !(scm instanceof GitSCM)) {
+            return scm;
+        }
+        GitSCM git = (GitSCM) scm;
+        List<UserRemoteConfig> remotes = git.getUserRemoteConfigs();
+        if (narrowRefSpecs) {
+            remotes = new ArrayList<>();
+            for (UserRemoteConfig remote : git.getUserRemoteConfigs()) {
+                remotes.add(new UserRemoteConfig(remote.getUrl(), remote.getName(), getRefSpecs(head), remote.getCredentialsId()));
+            }
+        }
+        List<GitSCMExtension> extensions = new ArrayList<>(git.getExtensions().toList());
+        if (referenceCache) {
+            extensions.add(new GogsReferenceCache());
+        }
+        return new GitSCM(remotes, git.getBranches(), false, Collections.<SubmoduleConfig>emptyList(),
+                git.getBrowser(), git.getGitTool(), extensions);
+    }
+
+    /**
+     * Refspecs fetching only the given head, mapped to the remote branch its name resolves to. Pull requests also
+     * fetch the branch they target, so they can be merged.
+     *
+     * @param head the head being built
+     * @return space separated refspecs
+     */
+    private String getRefSpecs(SCMHead head) {
+        Integer pullRequestId = getPullRequestId(head);
+        if (pullRequestId == null) {
+            return refSpec("refs/heads/" + head.getName(), head.getName());
+        }
+        String refSpecs = refSpec("refs/pull/" + pullRequestId + "/head", head.getName());
+        String targetBranch = ((SCMHeadWithOwnerAndRepo) head).getTargetBranch();
+        if (targetBranch != null) {
+            refSpecs += " " + refSpec("refs/heads/" + targetBranch, targetBranch);
         }
+        return refSpecs;
+    }
+
+    private String refSpec(String ref, String remoteBranch) {
+        return "+" + ref + ":refs/remotes/" + getRemoteName() + "/" + remoteBranch;
     }
 
     @Override
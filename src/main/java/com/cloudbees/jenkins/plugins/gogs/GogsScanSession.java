@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.cloudbees.jenkins.plugins.gogs.api.GogsApi;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsBranch;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsRequestException;
+import com.cloudbees.jenkins.plugins.gogs.server.client.GogsRequestClass;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import com.google.common.base.Optional;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * The Gogs connection used by {@link GogsSCMSource} for the duration of one retrieval.
+ *
+ * Credentials are resolved and API clients built once, instead of for every branch, pull request and probe, and
+ * branch lookups are remembered so several pull requests from the same fork branch resolve it once. Tree listings
+ * are kept per commit, so all the paths probed on a commit are answered from the same listings. Sessions are
+ * shared by the concurrent probes of a scan and are thread-safe.
+ */
+final class GogsScanSession {
+
+    private final GogsApiConnector connector;
+
+    private final String repoOwner;
+
+    private final String repository;
+
+    @CheckForNull
+    private final StandardUsernamePasswordCredentials credentials;
+
+    private final GogsRequestClass requestClass;
+
+    private final GogsApi gogs;
+
+    /**
+     * Clients for other repositories (pull request forks), keyed by "repoOwner/repository".
+     */
+    private final ConcurrentMap<String, GogsApi> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Branch lookups keyed by "repoOwner/repository:branch", absent for branches that do not exist.
+     */
+    private final ConcurrentMap<String, Optional<GogsBranch>> branches = new ConcurrentHashMap<>();
+
+    /**
+     * Tree listings of the commits probed, keyed by "repoOwner/repository@hash".
+     */
+    private final ConcurrentMap<String, CommitTree> trees = new ConcurrentHashMap<>();
+
+    GogsScanSession(@NonNull GogsApiConnector connector, @NonNull String repoOwner, @NonNull String repository,
+                    @CheckForNull StandardUsernamePasswordCredentials credentials, @NonNull GogsRequestClass requestClass) {
+        this.connector = connector;
+        this.repoOwner = repoOwner;
+        this.repository = repository;
+        this.credentials = credentials;
+        this.requestClass = requestClass;
+        this.gogs = connector.create(repoOwner, repository, credentials, requestClass);
+    }
+
+    @CheckForNull
+    StandardUsernamePasswordCredentials getCredentials() {
+        return credentials;
+    }
+
+    /**
+     * @return the client for the repository of the source
+     */
+    @NonNull
+    GogsApi getClient() {
+        return gogs;
+    }
+
+    /**
+     * @return a client for the given repository, using the credentials of the session
+     */
+    @NonNull
+    GogsApi getClient(@NonNull String owner, @NonNull String name) {
+        if (owner.equals(repoOwner) && name.equals(repository)) {
+            return gogs;
+        }
+        String key = owner + "/" + name;
+        GogsApi client = clients.get(key);
+        if (client == null) {
+            client = connector.create(owner, name, credentials, requestClass);
+            GogsApi existing = clients.putIfAbsent(key, client);
+            if (existing != null) {
+                client = existing;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * @return the branch of the source repository, or null if it does not exist
+     */
+    @CheckForNull
+    GogsBranch getBranch(@NonNull String name) throws InterruptedException {
+        return getBranch(repoOwner, repository, name);
+    }
+
+    /**
+     * @return the branch of the given repository, or null if it does not exist
+     */
+    @CheckForNull
+    GogsBranch getBranch(@NonNull String owner, @NonNull String repositoryName, @NonNull String name)
+            throws InterruptedException {
+        String key = owner + "/" + repositoryName + ":" + name;
+        Optional<GogsBranch> branch = branches.get(key);
+        if (branch == null) {
+            branch = Optional.fromNullable(lookupBranch(getClient(owner, repositoryName), name));
+            branches.put(key, branch);
+        }
+        return branch.orNull();
+    }
+
+    /**
+     * @return the tree listings of a commit of the given repository, shared by every probe of that commit
+     */
+    @NonNull
+    CommitTree getTree(@NonNull String owner, @NonNull String repositoryName, @NonNull String commit) {
+        String key = owner + "/" + repositoryName + "@" + commit;
+        CommitTree tree = trees.get(key);
+        if (tree == null) {
+            tree = new CommitTree(getClient(owner, repositoryName), commit);
+            CommitTree existing = trees.putIfAbsent(key, tree);
+            if (existing != null) {
+                tree = existing;
+            }
+        }
+        return tree;
+    }
+
+    @CheckForNull
+    private static GogsBranch lookupBranch(GogsApi gogs, String name) throws InterruptedException {
+        try {
+            return gogs.getBranch(name);
+        } catch (GogsRequestException e) {
+            if (e.getHttpCode() == HttpServletResponse.SC_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.util.concurrent.TimeUnit;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Remembers the commit each head pointed to when it was last observed, so resolving a head right after a scan or a
+ * hook does not ask Gogs again.
+ *
+ * Entries are filled by {@link GogsSCMSource} whenever it observes or retrieves a head, and dropped as soon as a hook
+ * says the repository changed. They expire after
+ * {@code com.cloudbees.jenkins.plugins.gogs.HeadRevisionCache.ttlSeconds} (default 30) and at most
+ * {@code com.cloudbees.jenkins.plugins.gogs.HeadRevisionCache.maxEntries} (default 10000) are kept. Sources can
+ * skip the cache with {@link GogsSCMSource#setStrictHeadRevision(boolean)}, and a TTL of 0 turns it off for every
+ * source.
+ */
+public final class HeadRevisionCache {
+
+    static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(
+            Math.max(0L, Long.getLong(HeadRevisionCache.class.getName() + ".ttlSeconds", 30L)));
+
+    static final int MAX_ENTRIES = Math.max(1, Integer.getInteger(HeadRevisionCache.class.getName() + ".maxEntries", 10000));
+
+    /**
+     * Hashes keyed by server, "repoOwner/repository" and head.
+     */
+    private static final TtlCache<String> HASHES = new TtlCache<>(TTL_MILLIS, MAX_ENTRIES);
+
+    /**
+     * @return the hash the head was last seen at, or null if unknown or expired
+     */
+    @CheckForNull
+    static String get(@CheckForNull String serverUrl, @NonNull String repoOwner, @NonNull String repository,
+                      @NonNull String head) {
+        return HASHES.get(TtlCache.key(serverUrl, repoOwner + "/" + repository, head));
+    }
+
+    static void put(@CheckForNull String serverUrl, @NonNull String repoOwner, @NonNull String repository,
+                    @NonNull String head, @NonNull String hash) {
+        HASHES.put(TtlCache.key(serverUrl, repoOwner + "/" + repository, head), hash);
+    }
+
+    /**
+     * Forgets the heads of a repository on every server, as hooks do not tell which server sent them.
+     *
+     * @param repoOwner the repository owner
+     * @param repository the repository name
+     * @param head the head name, or null for every head of the repository
+     */
+    public static void invalidate(@NonNull String repoOwner, @NonNull String repository, @CheckForNull String head) {
+        if (head == null) {
+            HASHES.invalidate(1, repoOwner + "/" + repository);
+        } else {
+            HASHES.invalidate(1, repoOwner + "/" + repository, head);
+        }
+    }
+
+    private HeadRevisionCache() {}
+
+}
@@ -48,6 +48,9 @@ public class ItemListenerImpl extends ItemListener {
                     " because the Org does not exists or it's not accessible", e);
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "Failed to apply Gogs Org Folder theme to " + item.getFullName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.FINE, "Interrupted while applying Gogs Org Folder theme to " + item.getFullName(), e);
         }
     }
 
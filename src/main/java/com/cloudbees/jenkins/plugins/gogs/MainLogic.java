@@ -38,7 +38,7 @@ public class MainLogic {
     /**
      * Applies UI customizations to {@link OrganizationFolder} for Gogs
      */
-    public void applyOrg(OrganizationFolder of, GogsSCMNavigator scm) throws IOException {
+    public void applyOrg(OrganizationFolder of, GogsSCMNavigator scm) throws IOException, InterruptedException {
         if (UPDATING.get().add(of)) {
             BulkChange bc = new BulkChange(of);
             try {
@@ -87,7 +87,7 @@ public class MainLogic {
     /**
      * Applies UI customizations to a level below {@link OrganizationFolder}, which maps to a repository.
      */
-    public void applyRepo(WorkflowMultiBranchProject item, GogsSCMNavigator scm) throws IOException {
+    public void applyRepo(WorkflowMultiBranchProject item, GogsSCMNavigator scm) throws IOException, InterruptedException {
         if (UPDATING.get().add(item)) {
             BulkChange bc = new BulkChange(item);
             try {
@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Charsets;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import hudson.util.AtomicFileWriter;
+import jenkins.scm.api.SCMSourceOwner;
+
+/**
+ * Remembers whether a path exists at a given commit of a Gogs repository.
+ *
+ * The answer for a fixed commit never changes, so entries are never invalidated, only evicted (least recently
+ * used first) once {@code com.cloudbees.jenkins.plugins.gogs.ProbeResultCache.maxEntries} (default 10000) is
+ * reached. Each {@link SCMSourceOwner} gets its own cache, persisted in {@value #FILE_NAME} in its root directory
+ * so re-indexing after a restart does not ask Gogs again.
+ */
+final class ProbeResultCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ProbeResultCache.class.getName());
+
+    static final String FILE_NAME = "gogs-probe-cache.txt";
+
+    static final int MAX_ENTRIES = Math.max(1, Integer.getInteger(ProbeResultCache.class.getName() + ".maxEntries", 10000));
+
+    /**
+     * Caches keyed by the full name of their owner, dropped when the owner is deleted or moved.
+     */
+    private static final ConcurrentMap<String, ProbeResultCache> CACHES = new ConcurrentHashMap<>();
+
+    private final File file;
+
+    private final Map<String, Boolean> entries = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private boolean dirty;
+
+    private ProbeResultCache(File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * @param owner the owner whose root directory holds the cache
+     * @return the cache of the owner, or null if there is no owner to persist it under
+     */
+    @CheckForNull
+    static ProbeResultCache of(@CheckForNull SCMSourceOwner owner) {
+        if (owner == null) {
+            return null;
+        }
+        String key = owner.getFullName();
+        ProbeResultCache cache = CACHES.get(key);
+        if (cache == null) {
+            ProbeResultCache created = new ProbeResultCache(new File(owner.getRootDir(), FILE_NAME));
+            cache = CACHES.putIfAbsent(key, created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+        return cache;
+    }
+
+    @CheckForNull
+    synchronized Boolean get(@NonNull String repository, @NonNull String hash, @NonNull String path) {
+        return entries.get(key(repository, hash, path));
+    }
+
+    synchronized void put(@NonNull String repository, @NonNull String hash, @NonNull String path, boolean exists) {
+        Boolean previous = entries.put(key(repository, hash, path), exists);
+        if (previous == null || previous != exists) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the cache to disk if anything was added since it was last loaded or saved.
+     */
+    void save() {
+        List<String> lines;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            lines = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Boolean> entry : entries.entrySet()) {
+                lines.add(entry.getKey() + '\t' + (entry.getValue() ? '1' : '0'));
+            }
+            dirty = false;
+        }
+        try {
+            AtomicFileWriter writer = new AtomicFileWriter(file, "UTF-8");
+            try {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+                writer.commit();
+            } finally {
+                writer.abort();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save probe cache " + file, e);
+        }
+    }
+
+    private synchronized void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.lastIndexOf('\t');
+                    if (tab > 0 && tab == line.length() - 2) {
+                        entries.put(line.substring(0, tab), line.charAt(tab + 1) == '1');
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not load probe cache " + file, e);
+        }
+    }
+
+    private static String key(String repository, String hash, String path) {
+        return repository + '@' + hash + ':' + path;
+    }
+
+    /**
+     * Drops the caches of an item and of the items it contains. Their files are left alone, they are deleted or
+     * moved along with the items.
+     */
+    private static void forget(String fullName) {
+        for (Iterator<String> it = CACHES.keySet().iterator(); it.hasNext(); ) {
+            String key = it.next();
+            if (key.equals(fullName) || key.startsWith(fullName + '/')) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the caches of deleted items, and of moved items which are loaded again from their new location.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            forget(oldFullName);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            forget(item.getFullName());
+        }
+
+    }
+
+}
@@ -23,7 +23,11 @@
  */
 package com.cloudbees.jenkins.plugins.gogs;
 
+import com.cloudbees.jenkins.plugins.gogs.api.GogsPullRequest;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsRepository;
+
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import jenkins.scm.api.SCMHead;
 
 /**
@@ -47,19 +51,47 @@ public class SCMHeadWithOwnerAndRepo extends SCMHead {
 
     private final Integer pullRequestId;
 
+    /**
+     * The branch a pull request targets, if known.
+     */
+    private final String targetBranch;
+
     private static final String PR_BRANCH_PREFIX = "PR-";
 
-    public SCMHeadWithOwnerAndRepo(String repoOwner, String repoName, String branchName, Integer pullRequestId) {
+    public SCMHeadWithOwnerAndRepo(String repoOwner, String repoName, String branchName, Integer pullRequestId,
+                                   String targetBranch) {
         super(branchName);
         this.repoOwner = repoOwner;
         this.repoName = repoName;
         this.pullRequestId = pullRequestId;
+        this.targetBranch = targetBranch;
+    }
+
+    public SCMHeadWithOwnerAndRepo(String repoOwner, String repoName, String branchName, Integer pullRequestId) {
+        this(repoOwner, repoName, branchName, pullRequestId, null);
     }
 
     public SCMHeadWithOwnerAndRepo(String repoOwner, String repoName, String branchName) {
         this(repoOwner, repoName, branchName, null);
     }
 
+    /**
+     * Builds the head of a pull request, pointing at the repository its source branch lives in.
+     *
+     * @param pull the pull request
+     * @param repoOwner the owner of the repository the pull request targets
+     * @param repoName the name of the repository the pull request targets
+     * @return the head, owned by the fork when the pull request comes from one
+     */
+    @NonNull
+    public static SCMHeadWithOwnerAndRepo forPullRequest(@NonNull GogsPullRequest pull, String repoOwner, String repoName) {
+        GogsRepository headRepository = pull.getHeadRepository();
+        boolean fork = headRepository != null && headRepository.getOwnerName() != null;
+        return new SCMHeadWithOwnerAndRepo(fork ? headRepository.getOwnerName() : repoOwner,
+                fork ? headRepository.getRepositoryName() : repoName,
+                pull.getHeadBranch(), pull.getNumber(), pull.getBaseBranch());
+    }
+
     public String getRepoOwner() {
         return repoOwner;
     }
@@ -89,4 +121,31 @@ public class SCMHeadWithOwnerAndRepo extends SCMHead {
         return pullRequestId;
     }
 
+    /**
+     * @return the branch the pull request targets, or null if not a PR or unknown.
+     */
+    @CheckForNull
+    public String getTargetBranch() {
+        return targetBranch;
+    }
+
+    /**
+     * Heads are equal when their prettified names are, as two pull requests may come from equally named branches.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return getName().equals(((SCMHeadWithOwnerAndRepo) o).getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return getName().hashCode();
+    }
+
 }
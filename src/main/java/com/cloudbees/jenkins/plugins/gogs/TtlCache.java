@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * A bounded in-memory cache whose entries expire a fixed time after they were stored.
+ *
+ * Keys are made of parts, see {@link #key(Object...)}, so entries can be invalidated by part, e.g. every entry of a
+ * repository whatever the server. Once full, the entries stored the longest time ago are dropped first, as they
+ * are also the first to expire. A time to live of 0 disables the cache. Instances are thread-safe.
+ *
+ * @param <V> the type of the cached values
+ */
+public final class TtlCache<V> {
+
+    private static final char SEPARATOR = '\n';
+
+    private final long ttlMillis;
+
+    private final Map<String, Entry<V>> entries;
+
+    /**
+     * @param ttlMillis how long entries are kept, 0 to disable the cache
+     * @param maxEntries how many entries are kept at most
+     */
+    public TtlCache(long ttlMillis, final int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry<V>>() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param parts the parts of the key, null parts being taken as empty
+     * @return a key made of the given parts
+     */
+    @NonNull
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                key.append(SEPARATOR);
+            }
+            if (parts[i] != null) {
+                key.append(parts[i]);
+            }
+        }
+        return key.toString();
+    }
+
+    public boolean isEnabled() {
+        return ttlMillis > 0;
+    }
+
+    /**
+     * @return the value stored for the key, or null if there is none or it expired
+     */
+    @CheckForNull
+    public V get(@NonNull String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.storedAt > ttlMillis) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    public void put(@NonNull String key, @NonNull V value) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            // re-insert so the entry moves to the end and the eldest entries are the first to expire
+            entries.remove(key);
+            entries.put(key, new Entry<V>(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Removes the entries whose key parts, starting from the given one, begin with the given parts.
+     *
+     * @param fromPart the index of the first key part compared
+     * @param parts the parts to match, null parts being taken as empty
+     */
+    public void invalidate(int fromPart, Object... parts) {
+        List<String> expected = Arrays.asList(key(parts).split(String.valueOf(SEPARATOR), -1));
+        synchronized (entries) {
+            for (Iterator<String> it = entries.keySet().iterator(); it.hasNext(); ) {
+                List<String> actual = Arrays.asList(it.next().split(String.valueOf(SEPARATOR), -1));
+                if (actual.size() >= fromPart + expected.size()
+                        && actual.subList(fromPart, fromPart + expected.size()).equals(expected)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final long storedAt;
+
+        Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+
+    }
+
+}
@@ -23,9 +23,11 @@
  */
 package com.cloudbees.jenkins.plugins.gogs.api;
 
+import java.io.IOException;
 import java.util.List;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 
 /**
  * Provides access to a specific repository.
@@ -46,19 +48,45 @@ public interface GogsApi {
     /**
      * @return the repository specified by {@link #getOwner()}/{@link #getRepositoryName()} 
      *      (or null if repositoryName is not set)
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
     @CheckForNull
-    GogsRepository getRepository();
+    GogsRepository getRepository() throws InterruptedException;
 
     /**
-     * @return the list of branches in the repository.
+     * @return the list of branches in the repository, read-only as it may be shared with other callers.
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
-    List<? extends GogsBranch> getBranches();
+    List<? extends GogsBranch> getBranches() throws InterruptedException;
+
+    /**
+     * Streams the branches of the repository to the visitor without holding the whole listing in memory.
+     *
+     * @param visitor receives each branch as it is read
+     * @throws IOException if the listing can not be read
+     * @throws InterruptedException if interrupted while visiting
+     */
+    void visitBranches(@NonNull GogsVisitor<? super GogsBranch> visitor) throws IOException, InterruptedException;
 
     /**
      * @return the get branch in repository.
+     * @throws InterruptedException if interrupted while waiting for the server.
+     */
+    GogsBranch getBranch(String name) throws InterruptedException;
+
+    /**
+     * @return the open pull requests targeting the repository, empty if the server has no pull request API.
+     * @throws InterruptedException if interrupted while waiting for the server.
+     */
+    List<? extends GogsPullRequest> getPullRequests() throws InterruptedException;
+
+    /**
+     * @param number the pull request number
+     * @return the pull request, or null if it does not exist.
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
-    GogsBranch getBranch(String name);
+    @CheckForNull
+    GogsPullRequest getPullRequest(int number) throws InterruptedException;
 
     /**
      * Register a webhook on the repository.
@@ -83,38 +111,68 @@ public interface GogsApi {
 
     /**
      * @return the list of webhooks registered in the repository.
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
-    List<? extends GogsWebHook> getWebHooks();
+    List<? extends GogsWebHook> getWebHooks() throws InterruptedException;
 
     /**
      * @return the organization of the current owner, or null if {@link #getOwner()} is not an organization ID.
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
     @CheckForNull
-    GogsOrganization getOrganization();
+    GogsOrganization getOrganization() throws InterruptedException;
 
     /**
      * @return the Gogs user for the current owner.
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
     @CheckForNull
-    GogsRepositoryOwner getUser();
+    GogsRepositoryOwner getUser() throws InterruptedException;
 
     /**
      * Returns all the repositories for the current owner (even if it's a regular user or an organization).
      *
      * @return all repositories for the current {@link #getOwner()}
+     * @throws InterruptedException if interrupted while waiting for the server.
+     */
+    List<? extends GogsRepository> getRepositories() throws InterruptedException;
+
+    /**
+     * Streams the repositories of the current owner to the visitor without holding the whole listing in memory.
+     *
+     * @param visitor receives each repository as it is read
+     * @throws IOException if the listing can not be read
+     * @throws InterruptedException if interrupted while visiting
      */
-    List<? extends GogsRepository> getRepositories();
+    void visitRepositories(@NonNull GogsVisitor<? super GogsRepository> visitor) throws IOException, InterruptedException;
 
     /**
      * @return true if the repository ({@link #getOwner()}/{@link #getRepositoryName()}) is private, false otherwise
      *          (if it's public or does not exists).
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
-    boolean isPrivate();
+    boolean isPrivate() throws InterruptedException;
 
 
     /**
-     * @return true if the path exists for repository branch.
+     * @param ref a branch name or a complete commit hash
+     * @param path the path to look for
+     * @return true if the path exists at the given ref, false if it does not.
+     * @throws GogsRequestException if the server could not tell whether the path exists.
+     * @throws InterruptedException if interrupted while waiting for the server.
      */
-    boolean checkPathExists(String branch, String path);
+    boolean checkPathExists(String ref, String path) throws InterruptedException;
+
+    /**
+     * Lists a tree without descending into its directories.
+     *
+     * @param sha a commit hash, for its root directory, or the hash of a directory
+     * @return the entries of the tree, or null if the server can not list trees or does not find the hash in the
+     * repository.
+     * @throws GogsRequestException if the server could not list the tree.
+     * @throws InterruptedException if interrupted while waiting for the server.
+     */
+    @CheckForNull
+    List<? extends GogsTreeEntry> getTree(String sha) throws InterruptedException;
 
 }
\ No newline at end of file
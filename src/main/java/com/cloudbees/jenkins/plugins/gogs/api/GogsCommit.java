@@ -38,4 +38,9 @@ public interface GogsCommit {
      */
     String getHash();
 
+    /**
+     * @return the commit timestamp in milliseconds since the epoch, or 0 if unknown
+     */
+    long getDateMillis();
+
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.api;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * Gogs pull request.
+ */
+public interface GogsPullRequest {
+
+    /**
+     * @return the pull request number within the base repository
+     */
+    int getNumber();
+
+    /**
+     * @return the pull request title
+     */
+    String getTitle();
+
+    /**
+     * @return true while the pull request is open
+     */
+    boolean isOpen();
+
+    /**
+     * @return the branch to be merged
+     */
+    String getHeadBranch();
+
+    /**
+     * @return the repository holding {@link #getHeadBranch()}, which is a fork for pull requests across repositories
+     */
+    @CheckForNull
+    GogsRepository getHeadRepository();
+
+    /**
+     * @return the branch the pull request targets
+     */
+    String getBaseBranch();
+
+}
@@ -1,26 +1,36 @@
 package com.cloudbees.jenkins.plugins.gogs.hooks;
 
 import com.cloudbees.jenkins.plugins.gogs.server.client.GogsWebhookPayload;
-import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPushEvent;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsCreateEvent;
 
+import jenkins.scm.api.SCMEvent;
+
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class CreateHookProcessor extends HookProcessor {
 
     private static final Logger LOGGER = Logger.getLogger(CreateHookProcessor.class.getName());
 
-    //TODO currently the same as PushHookProcessor
     @Override
     public void process(String payload) {
         if (payload != null) {
-            // TODO: generalize this for BB server
-            GogsPushEvent push = GogsWebhookPayload.pushEventFromPayload(payload);
-            if (push != null) {
-                String owner = push.getRepository().getOwner().getUsername();
-                String repository = push.getRepository().getName();
+            GogsCreateEvent create = GogsWebhookPayload.createEventFromPayload(payload);
+            if (create != null) {
+                String owner = create.getRepository().getOwner().getUsername();
+                String repository = create.getRepository().getName();
 
-                LOGGER.info(String.format("Received hook from Gogs. Processing create event on %s/%s", owner, repository));
-                scmSourceReIndex(owner, repository);
+                if (!GogsCreateEvent.REF_TYPE_BRANCH.equals(create.getRefType())) {
+                    LOGGER.log(Level.FINE, "Ignoring creation of {0} {1} on {2}/{3}",
+                            new Object[] {create.getRefType(), create.getRef(), owner, repository});
+                } else if (create.getRef() != null) {
+                    LOGGER.info(String.format("Received hook from Gogs. Processing create event on %s/%s branch %s", owner, repository, create.getRef()));
+                    // the create hook does not carry the new head, it is resolved when the branch is fetched
+                    branchChanged(SCMEvent.Type.CREATED, create.getRepository(), create.getRef(), null);
+                } else {
+                    LOGGER.info(String.format("Received hook from Gogs. Processing create event on %s/%s", owner, repository));
+                    scmSourceReIndex(create.getRepository());
+                }
             }
         }
     }
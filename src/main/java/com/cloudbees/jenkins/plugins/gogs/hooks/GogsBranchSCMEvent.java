@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.hooks;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsSCMNavigator;
+import com.cloudbees.jenkins.plugins.gogs.GogsSCMSource;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.PayloadRepo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.scm.SCM;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+
+/**
+ * A change to some branches of a Gogs repository, as reported by push or create hooks.
+ *
+ * Branch API only fetches the heads named by the event from the matching {@link GogsSCMSource}, instead of scanning
+ * every branch of the repository. Several hooks for the same repository may be merged into one event by
+ * {@link GogsHookCoalescer}.
+ */
+public class GogsBranchSCMEvent extends SCMHeadEvent<PayloadRepo> {
+
+    /**
+     * New heads keyed by branch name, a null head meaning the hook did not say.
+     */
+    private final Map<String, String> branches;
+
+    /**
+     * @param type the kind of change
+     * @param repository the repository from the hook payload
+     * @param branch the branch name (without refs/heads/)
+     * @param hash the new head of the branch, or null if the hook does not say
+     */
+    public GogsBranchSCMEvent(@NonNull Type type, @NonNull PayloadRepo repository, @NonNull String branch, @CheckForNull String hash) {
+        this(type, repository, Collections.singletonMap(branch, hash));
+    }
+
+    /**
+     * @param type the kind of change
+     * @param repository the repository from the hook payload
+     * @param branches the new heads keyed by branch name (without refs/heads/), null when the hook does not say
+     */
+    public GogsBranchSCMEvent(@NonNull Type type, @NonNull PayloadRepo repository, @NonNull Map<String, String> branches) {
+        super(type, repository);
+        this.branches = Collections.unmodifiableMap(new LinkedHashMap<>(branches));
+    }
+
+    /**
+     * @return the new heads keyed by branch name, null when the hook did not say
+     */
+    @NonNull
+    public Map<String, String> getBranches() {
+        return branches;
+    }
+
+    private String getRepoOwner() {
+        return getPayload().getOwner().getUsername();
+    }
+
+    private String getServerUrl() {
+        return GogsSCMSourceIndex.serverUrlOf(getPayload());
+    }
+
+    @Override
+    public boolean isMatch(@NonNull SCMNavigator navigator) {
+        return navigator instanceof GogsSCMNavigator && getRepoOwner().equals(((GogsSCMNavigator) navigator).getRepoOwner())
+                && GogsSCMSourceIndex.isSameServer(getServerUrl(), ((GogsSCMNavigator) navigator).getGogsServerUrl());
+    }
+
+    @NonNull
+    @Override
+    public String getSourceName() {
+        return getPayload().getName();
+    }
+
+    @NonNull
+    @Override
+    public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+        if (!(source instanceof GogsSCMSource)) {
+            return Collections.emptyMap();
+        }
+        GogsSCMSource gogsSource = (GogsSCMSource) source;
+        if (!getRepoOwner().equals(gogsSource.getRepoOwner()) || !getSourceName().equals(gogsSource.getRepository())
+                || !GogsSCMSourceIndex.isSameServer(getServerUrl(), gogsSource.getGogsServerUrl())) {
+            return Collections.emptyMap();
+        }
+        Map<SCMHead, SCMRevision> heads = new LinkedHashMap<>();
+        for (Map.Entry<String, String> branch : branches.entrySet()) {
+            SCMHead head = new SCMHead(branch.getKey());
+            String hash = branch.getValue();
+            heads.put(head, hash != null && getType() != Type.REMOVED ? new AbstractGitSCMSource.SCMRevisionImpl(head, hash) : null);
+        }
+        return heads;
+    }
+
+    @Override
+    public boolean isMatch(@NonNull SCM scm) {
+        // Gogs jobs are driven by their SCMSource, plain SCM polling is not triggered from hooks
+        return false;
+    }
+
+}
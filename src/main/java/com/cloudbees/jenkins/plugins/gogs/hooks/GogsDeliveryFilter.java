@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.hooks;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsMetricsLogger;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * Remembers the recently received Gogs deliveries, so the copies Gogs resends on timeout or that are replayed from
+ * its UI are dropped before being processed.
+ *
+ * Deliveries are identified by the {@code X-Gogs-Delivery} header. Sizing can be tuned with the system properties
+ * {@code com.cloudbees.jenkins.plugins.gogs.hooks.GogsDeliveryFilter.maxEntries} (default 10000) and
+ * {@code com.cloudbees.jenkins.plugins.gogs.hooks.GogsDeliveryFilter.expiryMinutes} (default 60).
+ *
+ * The number of duplicates dropped is reported to {@link GogsMetricsLogger}.
+ */
+public final class GogsDeliveryFilter {
+
+    static final int MAX_ENTRIES = Math.max(1, Integer.getInteger(GogsDeliveryFilter.class.getName() + ".maxEntries", 10000));
+
+    static final long EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(
+            Math.max(0L, Long.getLong(GogsDeliveryFilter.class.getName() + ".expiryMinutes", 60L)));
+
+    /**
+     * Reception times keyed by delivery id, oldest first.
+     */
+    private static final LinkedHashMap<String, Long> SEEN = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Duplicates dropped since the previous metrics report.
+     */
+    private static final AtomicLong DUPLICATES = new AtomicLong();
+
+    static {
+        GogsMetricsLogger.register(new GogsMetricsLogger.Report() {
+            @Override
+            public String drain() {
+                long duplicates = DUPLICATES.getAndSet(0);
+                return duplicates == 0 ? null : "Dropped " + duplicates + " duplicate Gogs deliveries";
+            }
+        });
+    }
+
+    /**
+     * Records a delivery.
+     *
+     * @param delivery the {@code X-Gogs-Delivery} header, deliveries without one are always accepted
+     * @return false if the same delivery was already received
+     */
+    public static boolean accept(@CheckForNull String delivery) {
+        if (delivery == null || delivery.isEmpty()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (SEEN) {
+            for (Iterator<Long> it = SEEN.values().iterator(); it.hasNext(); ) {
+                if (it.next() > now - EXPIRY_MILLIS) {
+                    break;
+                }
+                it.remove();
+            }
+            if (SEEN.containsKey(delivery)) {
+                DUPLICATES.incrementAndGet();
+                return false;
+            }
+            SEEN.put(delivery, now);
+            return true;
+        }
+    }
+
+    /**
+     * Forgets a delivery that could not be processed, so it is accepted when redelivered.
+     *
+     * @param delivery the {@code X-Gogs-Delivery} header
+     */
+    public static void forget(@CheckForNull String delivery) {
+        if (delivery != null) {
+            synchronized (SEEN) {
+                SEEN.remove(delivery);
+            }
+        }
+    }
+
+    private GogsDeliveryFilter() {}
+
+}
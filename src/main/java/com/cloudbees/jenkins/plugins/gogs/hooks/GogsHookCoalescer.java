@@ -0,0 +1,242 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.hooks;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsSCMSource;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPullRequestEvent;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.PayloadRepo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.security.ACL;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.util.Timer;
+
+/**
+ * Merges the hooks received for the same repository within a short window.
+ *
+ * A push of many refs makes Gogs send one hook per ref. The first hook for a repository opens a window, and the
+ * hooks that arrive before it closes are folded into it: when the window closes a single {@link GogsBranchSCMEvent}
+ * per kind of change is fired with every branch seen, one {@link GogsPullRequestSCMEvent} per pull request seen, or a
+ * single re-index when any of the hooks asked for one.
+ *
+ * The window can be tuned with the system property
+ * {@code com.cloudbees.jenkins.plugins.gogs.hooks.GogsHookCoalescer.windowMillis} (default 3000), 0 disables it.
+ */
+final class GogsHookCoalescer {
+
+    private static final Logger LOGGER = Logger.getLogger(GogsHookCoalescer.class.getName());
+
+    static final long WINDOW_MILLIS = Math.max(0L, Long.getLong(GogsHookCoalescer.class.getName() + ".windowMillis", 3000L));
+
+    /**
+     * Open windows keyed by "serverUrl/repoOwner/repository".
+     */
+    private static final Map<String, Pending> PENDING = new HashMap<>();
+
+    /**
+     * Records a branch change, fired when the window of its repository closes.
+     *
+     * @param type the kind of change
+     * @param repository the repository from the hook payload
+     * @param branch the branch name (without refs/heads/)
+     * @param hash the new head of the branch, or null if unknown
+     */
+    static void branchChanged(@NonNull SCMEvent.Type type, @NonNull PayloadRepo repository, @NonNull String branch,
+                              @CheckForNull String hash) {
+        String owner = repository.getOwner().getUsername();
+        String name = repository.getName();
+        if (WINDOW_MILLIS == 0) {
+            SCMHeadEvent.fireNow(new GogsBranchSCMEvent(type, repository, branch, hash));
+            return;
+        }
+        synchronized (PENDING) {
+            pending(GogsSCMSourceIndex.serverUrlOf(repository), owner, name).branchChanged(type, repository, branch, hash);
+        }
+    }
+
+    /**
+     * Records a pull request change, fired when the window of its repository closes. Only the latest hook received
+     * for a pull request is kept.
+     *
+     * @param type the kind of change
+     * @param payload the pull_request hook payload
+     */
+    static void pullRequestChanged(@NonNull SCMEvent.Type type, @NonNull GogsPullRequestEvent payload) {
+        if (WINDOW_MILLIS == 0) {
+            SCMHeadEvent.fireNow(new GogsPullRequestSCMEvent(type, payload));
+            return;
+        }
+        synchronized (PENDING) {
+            PayloadRepo repository = payload.getRepository();
+            pending(GogsSCMSourceIndex.serverUrlOf(repository), repository.getOwner().getUsername(), repository.getName())
+                    .pullRequestChanged(type, payload);
+        }
+    }
+
+    /**
+     * Records a full re-index request, run when the window of its repository closes.
+     *
+     * @param serverUrl the server the hook comes from, or null to re-index the sources of any server
+     * @param owner the repository owner
+     * @param repository the repository name
+     */
+    static void reIndex(@CheckForNull String serverUrl, @NonNull String owner, @NonNull String repository) {
+        if (WINDOW_MILLIS == 0) {
+            reIndexNow(serverUrl, owner, repository);
+            return;
+        }
+        synchronized (PENDING) {
+            pending(serverUrl, owner, repository).reIndex = true;
+        }
+    }
+
+    private static Pending pending(final String serverUrl, final String owner, final String repository) {
+        final String key = serverUrl + "/" + owner + "/" + repository;
+        Pending pending = PENDING.get(key);
+        if (pending == null) {
+            pending = new Pending(serverUrl, owner, repository);
+            PENDING.put(key, pending);
+            Timer.get().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    Pending flushed;
+                    synchronized (PENDING) {
+                        flushed = PENDING.remove(key);
+                    }
+                    if (flushed != null) {
+                        flushed.fire();
+                    }
+                }
+            }, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return pending;
+    }
+
+    private static void reIndexNow(final String serverUrl, final String owner, final String repository) {
+        ACL.impersonate(ACL.SYSTEM, new Runnable() {
+            @Override
+            public void run() {
+                Map<SCMSourceOwner, List<GogsSCMSource>> matches = GogsSCMSourceIndex.lookup(serverUrl, owner, repository);
+                for (Map.Entry<SCMSourceOwner, List<GogsSCMSource>> match : matches.entrySet()) {
+                    for (GogsSCMSource source : match.getValue()) {
+                        match.getKey().onSCMSourceUpdated(source);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * The hooks received for a repository while its window is open. Guarded by {@link #PENDING}.
+     */
+    private static class Pending {
+
+        private final String serverUrl;
+
+        private final String owner;
+
+        private final String repository;
+
+        private boolean reIndex;
+
+        private PayloadRepo payload;
+
+        private final Map<String, SCMEvent.Type> types = new LinkedHashMap<>();
+
+        private final Map<String, String> hashes = new HashMap<>();
+
+        private final Map<Integer, GogsPullRequestSCMEvent> pullRequests = new LinkedHashMap<>();
+
+        private int hooks;
+
+        Pending(String serverUrl, String owner, String repository) {
+            this.serverUrl = serverUrl;
+            this.owner = owner;
+            this.repository = repository;
+        }
+
+        void branchChanged(SCMEvent.Type type, PayloadRepo payload, String branch, String hash) {
+            this.payload = payload;
+            hooks++;
+            // the latest hook tells the state of the branch, but a create hook carries no head
+            if (hash == null && type != SCMEvent.Type.REMOVED) {
+                hash = hashes.get(branch);
+            }
+            types.remove(branch);
+            types.put(branch, type);
+            hashes.put(branch, hash);
+        }
+
+        void pullRequestChanged(SCMEvent.Type type, GogsPullRequestEvent payload) {
+            hooks++;
+            // a PR opened and updated within the window is still new to the jobs
+            GogsPullRequestSCMEvent previous = pullRequests.remove(payload.getNumber());
+            if (previous != null && previous.getType() == SCMEvent.Type.CREATED && type == SCMEvent.Type.UPDATED) {
+                type = SCMEvent.Type.CREATED;
+            }
+            pullRequests.put(payload.getNumber(), new GogsPullRequestSCMEvent(type, payload));
+        }
+
+        void fire() {
+            if (reIndex) {
+                LOGGER.log(Level.FINE, "Re-indexing {0}/{1} for {2} coalesced hooks",
+                        new Object[] {owner, repository, hooks});
+                reIndexNow(serverUrl, owner, repository);
+                return;
+            }
+            Map<SCMEvent.Type, Map<String, String>> byType = new EnumMap<>(SCMEvent.Type.class);
+            for (Map.Entry<String, SCMEvent.Type> branch : types.entrySet()) {
+                Map<String, String> branches = byType.get(branch.getValue());
+                if (branches == null) {
+                    branches = new LinkedHashMap<>();
+                    byType.put(branch.getValue(), branches);
+                }
+                branches.put(branch.getKey(), hashes.get(branch.getKey()));
+            }
+            LOGGER.log(Level.FINE, "Firing {0} events on {1}/{2} for {3} coalesced hooks",
+                    new Object[] {byType.size() + pullRequests.size(), owner, repository, hooks});
+            for (Map.Entry<SCMEvent.Type, Map<String, String>> event : byType.entrySet()) {
+                SCMHeadEvent.fireNow(new GogsBranchSCMEvent(event.getKey(), payload, event.getValue()));
+            }
+            for (GogsPullRequestSCMEvent event : pullRequests.values()) {
+                SCMHeadEvent.fireNow(event);
+            }
+        }
+    }
+
+    private GogsHookCoalescer() {}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.hooks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsMetricsLogger;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Bounded queue between {@link GogsSCMSourcePushHookReceiver} and the {@link HookProcessor}s.
+ *
+ * The receiver only enqueues the raw payload and answers Gogs right away; payload parsing and source lookup happen
+ * on a small pool of workers. When the queue is full the hook is dropped and counted, and the receiver answers
+ * 503 so Gogs reports the delivery as failed.
+ *
+ * Sizing can be tuned with the system properties
+ * {@code com.cloudbees.jenkins.plugins.gogs.hooks.GogsHookQueue.workers} (default 2) and
+ * {@code com.cloudbees.jenkins.plugins.gogs.hooks.GogsHookQueue.capacity} (default 1000).
+ *
+ * The queue depth, the hooks processed and dropped and their latency are reported to {@link GogsMetricsLogger}.
+ */
+public final class GogsHookQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(GogsHookQueue.class.getName());
+
+    static final int WORKERS = Math.max(1, Integer.getInteger(GogsHookQueue.class.getName() + ".workers", 2));
+
+    static final int CAPACITY = Math.max(1, Integer.getInteger(GogsHookQueue.class.getName() + ".capacity", 1000));
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(WORKERS, WORKERS, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(CAPACITY),
+            new NamingThreadFactory(new DaemonThreadFactory(), GogsHookQueue.class.getName()));
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /*
+     * Counters since the previous metrics report.
+     */
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong PROCESSED = new AtomicLong();
+    private static final AtomicLong TOTAL_LATENCY_MILLIS = new AtomicLong();
+    private static final AtomicLong MAX_LATENCY_MILLIS = new AtomicLong();
+
+    static {
+        GogsMetricsLogger.register(new GogsMetricsLogger.Report() {
+            @Override
+            public String drain() {
+                long dropped = DROPPED.getAndSet(0);
+                long processed = PROCESSED.getAndSet(0);
+                long latency = TOTAL_LATENCY_MILLIS.getAndSet(0);
+                long maxLatency = MAX_LATENCY_MILLIS.getAndSet(0);
+                int depth = EXECUTOR.getQueue().size();
+                if (processed == 0 && dropped == 0 && depth == 0) {
+                    return null;
+                }
+                return String.format("Gogs hooks: %d processed in %dms on average, longest %dms, %d dropped, %d pending",
+                        processed, processed == 0 ? 0 : latency / processed, maxLatency, dropped, depth);
+            }
+        });
+    }
+
+    /**
+     * Queues a hook for processing.
+     *
+     * @param type the hook type
+     * @param payload the raw hook payload
+     * @return false if the queue is full and the hook was dropped
+     */
+    public static boolean submit(@NonNull final HookEventType type, @NonNull final String payload) {
+        final long queuedAt = System.currentTimeMillis();
+        try {
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        type.getProcessor().process(payload);
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Failed to process Gogs " + type.getKey() + " hook", e);
+                    } finally {
+                        recordLatency(System.currentTimeMillis() - queuedAt);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            DROPPED.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Gogs hook queue is full ({0} pending), dropping {1} hook.",
+                    new Object[] {CAPACITY, type.getKey()});
+            return false;
+        }
+    }
+
+    private static void recordLatency(long millis) {
+        PROCESSED.incrementAndGet();
+        TOTAL_LATENCY_MILLIS.addAndGet(millis);
+        long max;
+        do {
+            max = MAX_LATENCY_MILLIS.get();
+        } while (millis > max && !MAX_LATENCY_MILLIS.compareAndSet(max, millis));
+    }
+
+    private GogsHookQueue() {}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.hooks;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsSCMNavigator;
+import com.cloudbees.jenkins.plugins.gogs.GogsSCMSource;
+import com.cloudbees.jenkins.plugins.gogs.SCMHeadWithOwnerAndRepo;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPullRequestEvent;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.scm.SCM;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+
+/**
+ * A change to a single pull request, as reported by a pull_request hook.
+ *
+ * Branch API only fetches the PR-[ID] head from the matching {@link GogsSCMSource}. The hook does not carry the head
+ * commit of the pull request, it is resolved when the head is fetched.
+ */
+public class GogsPullRequestSCMEvent extends SCMHeadEvent<GogsPullRequestEvent> {
+
+    /**
+     * @param type the kind of change
+     * @param payload the hook payload
+     */
+    public GogsPullRequestSCMEvent(@NonNull Type type, @NonNull GogsPullRequestEvent payload) {
+        super(type, payload);
+    }
+
+    /**
+     * @param action the action of a pull_request hook
+     * @return the matching kind of change
+     */
+    @NonNull
+    public static Type typeOf(String action) {
+        if (GogsPullRequestEvent.ACTION_OPENED.equals(action) || GogsPullRequestEvent.ACTION_REOPENED.equals(action)) {
+            return Type.CREATED;
+        }
+        if (GogsPullRequestEvent.ACTION_CLOSED.equals(action)) {
+            return Type.REMOVED;
+        }
+        return Type.UPDATED;
+    }
+
+    private String getRepoOwner() {
+        return getPayload().getRepository().getOwner().getUsername();
+    }
+
+    private String getServerUrl() {
+        return GogsSCMSourceIndex.serverUrlOf(getPayload().getRepository());
+    }
+
+    @Override
+    public boolean isMatch(@NonNull SCMNavigator navigator) {
+        return navigator instanceof GogsSCMNavigator && getRepoOwner().equals(((GogsSCMNavigator) navigator).getRepoOwner())
+                && GogsSCMSourceIndex.isSameServer(getServerUrl(), ((GogsSCMNavigator) navigator).getGogsServerUrl());
+    }
+
+    @NonNull
+    @Override
+    public String getSourceName() {
+        return getPayload().getRepository().getName();
+    }
+
+    @NonNull
+    @Override
+    public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+        if (!(source instanceof GogsSCMSource)) {
+            return Collections.emptyMap();
+        }
+        GogsSCMSource gogsSource = (GogsSCMSource) source;
+        if (!getRepoOwner().equals(gogsSource.getRepoOwner()) || !getSourceName().equals(gogsSource.getRepository())
+                || !GogsSCMSourceIndex.isSameServer(getServerUrl(), gogsSource.getGogsServerUrl())) {
+            return Collections.emptyMap();
+        }
+        // same head as a scan builds, owned by the fork the pull request comes from
+        SCMHead head = SCMHeadWithOwnerAndRepo.forPullRequest(getPayload().getPullRequest(),
+                gogsSource.getRepoOwner(), gogsSource.getRepository());
+        return Collections.<SCMHead, SCMRevision>singletonMap(head, null);
+    }
+
+    @Override
+    public boolean isMatch(@NonNull SCM scm) {
+        // Gogs jobs are driven by their SCMSource, plain SCM polling is not triggered from hooks
+        return false;
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.hooks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsSCMSource;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.PayloadRepo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.SCMSourceOwners;
+
+/**
+ * In-memory index from a Gogs repository to the {@link SCMSourceOwner}s having a {@link GogsSCMSource} for it.
+ *
+ * Routing a hook or checking whether a repository is still used elsewhere is then a map lookup instead of a sweep
+ * over every job. The index is built on first use and kept up to date from item creation, update, rename and
+ * deletion, and from every save of an {@link SCMSourceOwner} (which is how computed folders persist new sources).
+ */
+public final class GogsSCMSourceIndex {
+
+    /**
+     * Owners keyed by "repoOwner/repository".
+     */
+    private static final Map<String, Set<SCMSourceOwner>> BY_REPOSITORY = new HashMap<>();
+
+    /**
+     * Repository keys indexed for each owner, to unindex it without a sweep.
+     */
+    private static final Map<SCMSourceOwner, Set<String>> BY_OWNER = new HashMap<>();
+
+    private static boolean initialized;
+
+    /**
+     * Finds the sources configured for a Gogs repository.
+     *
+     * @param serverUrl the Gogs server URL, or null to match sources of any server
+     * @param repoOwner the repository owner
+     * @param repository the repository name
+     * @return the matching sources, grouped by owner
+     */
+    @NonNull
+    public static Map<SCMSourceOwner, List<GogsSCMSource>> lookup(@CheckForNull String serverUrl, @NonNull String repoOwner, @NonNull String repository) {
+        List<SCMSourceOwner> owners;
+        synchronized (GogsSCMSourceIndex.class) {
+            ensureInitialized();
+            Set<SCMSourceOwner> indexed = BY_REPOSITORY.get(key(repoOwner, repository));
+            if (indexed == null) {
+                return Collections.emptyMap();
+            }
+            owners = new ArrayList<>(indexed);
+        }
+        Map<SCMSourceOwner, List<GogsSCMSource>> result = new LinkedHashMap<>();
+        for (SCMSourceOwner owner : owners) {
+            List<GogsSCMSource> sources = new ArrayList<>();
+            for (GogsSCMSource source : getGogsSCMSources(owner)) {
+                if (repoOwner.equals(source.getRepoOwner()) && repository.equals(source.getRepository())
+                        && isSameServer(serverUrl, source.getGogsServerUrl())) {
+                    sources.add(source);
+                }
+            }
+            if (!sources.isEmpty()) {
+                result.put(owner, sources);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tells the base URL of the Gogs server a hook payload comes from, from the repository URL it carries.
+     *
+     * @param repository the repository from the hook payload
+     * @return the server URL without trailing slash, or null if the payload does not tell
+     */
+    @CheckForNull
+    static String serverUrlOf(@NonNull PayloadRepo repository) {
+        String url = repository.getUrl();
+        if (url == null || repository.getOwner() == null) {
+            return null;
+        }
+        url = url.replaceAll("/+$", "");
+        String path = "/" + repository.getOwner().getUsername() + "/" + repository.getName();
+        if (!url.regionMatches(true, url.length() - path.length(), path, 0, path.length())) {
+            return null;
+        }
+        return url.substring(0, url.length() - path.length());
+    }
+
+    /**
+     * Checks whether a hook from a server is meant for a source or navigator configured with a server URL. An unknown
+     * hook server or an unset configured URL matches any server.
+     *
+     * @param serverUrl the server the hook comes from, or null if unknown
+     * @param configuredUrl the server URL configured in the source or navigator
+     * @return true if both designate the same server
+     */
+    static boolean isSameServer(@CheckForNull String serverUrl, @CheckForNull String configuredUrl) {
+        if (serverUrl == null || configuredUrl == null) {
+            return true;
+        }
+        return serverUrl.replaceAll("/+$", "").equalsIgnoreCase(configuredUrl.replaceAll("/+$", ""));
+    }
+
+    static synchronized void index(@NonNull SCMSourceOwner owner) {
+        if (!initialized) {
+            // the initial sweep will pick it up
+            return;
+        }
+        doUnindex(owner);
+        doIndex(owner);
+    }
+
+    static synchronized void unindex(@NonNull SCMSourceOwner owner) {
+        doUnindex(owner);
+    }
+
+    static synchronized void reset() {
+        BY_REPOSITORY.clear();
+        BY_OWNER.clear();
+        initialized = false;
+    }
+
+    private static void ensureInitialized() {
+        if (initialized) {
+            return;
+        }
+        SecurityContext context = ACL.impersonate(ACL.SYSTEM);
+        try {
+            for (SCMSourceOwner owner : SCMSourceOwners.all()) {
+                doIndex(owner);
+            }
+        } finally {
+            SecurityContextHolder.setContext(context);
+        }
+        initialized = true;
+    }
+
+    private static void doIndex(SCMSourceOwner owner) {
+        Set<String> keys = new HashSet<>();
+        for (GogsSCMSource source : getGogsSCMSources(owner)) {
+            keys.add(key(source.getRepoOwner(), source.getRepository()));
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        BY_OWNER.put(owner, keys);
+        for (String key : keys) {
+            Set<SCMSourceOwner> owners = BY_REPOSITORY.get(key);
+            if (owners == null) {
+                owners = new HashSet<>();
+                BY_REPOSITORY.put(key, owners);
+            }
+            owners.add(owner);
+        }
+    }
+
+    private static void doUnindex(SCMSourceOwner owner) {
+        Set<String> keys = BY_OWNER.remove(owner);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Set<SCMSourceOwner> owners = BY_REPOSITORY.get(key);
+            if (owners != null) {
+                owners.remove(owner);
+                if (owners.isEmpty()) {
+                    BY_REPOSITORY.remove(key);
+                }
+            }
+        }
+    }
+
+    private static List<GogsSCMSource> getGogsSCMSources(SCMSourceOwner owner) {
+        List<GogsSCMSource> sources = new ArrayList<>();
+        List<SCMSource> all = owner.getSCMSources();
+        if (all != null) {
+            for (SCMSource source : all) {
+                if (source instanceof GogsSCMSource) {
+                    sources.add((GogsSCMSource) source);
+                }
+            }
+        }
+        return sources;
+    }
+
+    private static String key(String repoOwner, String repository) {
+        return repoOwner + "/" + repository;
+    }
+
+    private GogsSCMSourceIndex() {}
+
+    /**
+     * Keeps the index in sync with item lifecycle events.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            reset();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            if (item instanceof SCMSourceOwner) {
+                index((SCMSourceOwner) item);
+            }
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            if (item instanceof SCMSourceOwner) {
+                index((SCMSourceOwner) item);
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            if (item instanceof SCMSourceOwner) {
+                index((SCMSourceOwner) item);
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof SCMSourceOwner) {
+                unindex((SCMSourceOwner) item);
+            }
+        }
+
+    }
+
+    /**
+     * Catches source changes which are saved without an item update event, e.g. by organization folder scans.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof SCMSourceOwner) {
+                index((SCMSourceOwner) o);
+            }
+        }
+
+    }
+
+}
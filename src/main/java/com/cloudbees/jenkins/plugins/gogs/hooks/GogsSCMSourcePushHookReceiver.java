@@ -72,13 +72,15 @@ public class GogsSCMSourcePushHookReceiver extends CrumbExclusion implements Unp
     /**
      * Receives Gogs push notifications.
      *
+     * The hook is only validated here and then handed to {@link GogsHookQueue}, so Gogs gets its answer without
+     * waiting for the payload to be processed. Deliveries already received, per their X-Gogs-Delivery header, are
+     * acknowledged without being processed again.
      * @param req Stapler request. It contains the payload in the body content
      *          and a header param "X-Event-Key" pointing to the event type.
      * @return the HTTP response object
      * @throws IOException if there is any issue reading the HTTP content payload.
      */
     public HttpResponse doNotify(StaplerRequest req) throws IOException {
-        String body = IOUtils.toString(req.getInputStream());
         String eventKey = req.getHeader("X-Gogs-Event");
         if (eventKey == null) {
             return HttpResponses.error(HttpServletResponse.SC_BAD_REQUEST, "X-Gogs-Event HTTP header not found");
@@ -88,7 +90,24 @@ public class GogsSCMSourcePushHookReceiver extends CrumbExclusion implements Unp
             LOGGER.info("Received unknown Gogs hook: " + eventKey + ". Skipping.");
             return HttpResponses.error(HttpServletResponse.SC_BAD_REQUEST, "X-Gogs-Event HTTP header invalid: " + eventKey);
         }
-        type.getProcessor().process(body);
+        String delivery = req.getHeader("X-Gogs-Delivery");
+        if (!GogsDeliveryFilter.accept(delivery)) {
+            LOGGER.fine("Ignoring duplicate Gogs delivery " + delivery);
+            return HttpResponses.ok();
+        }
+        String body;
+        try {
+            body = IOUtils.toString(req.getInputStream());
+        } catch (IOException e) {
+            // not processed, let Gogs redeliver it
+            GogsDeliveryFilter.forget(delivery);
+            throw e;
+        }
+        if (!GogsHookQueue.submit(type, body)) {
+            // let Gogs redeliver it
+            GogsDeliveryFilter.forget(delivery);
+            return HttpResponses.error(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many pending Gogs hooks");
+        }
         return HttpResponses.ok();
     }
 
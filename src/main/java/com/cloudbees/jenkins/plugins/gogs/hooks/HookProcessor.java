@@ -23,25 +23,21 @@
  */
 package com.cloudbees.jenkins.plugins.gogs.hooks;
 
-import java.util.List;
+import com.cloudbees.jenkins.plugins.gogs.HeadRevisionCache;
+import com.cloudbees.jenkins.plugins.gogs.server.client.GogsRepositoryCache;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.PayloadRepo;
 
-import com.cloudbees.jenkins.plugins.gogs.GogsSCMSource;
-
-import hudson.security.ACL;
-import jenkins.scm.api.SCMSource;
-import jenkins.scm.api.SCMSourceOwner;
-import jenkins.scm.api.SCMSourceOwners;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jenkins.scm.api.SCMEvent;
 
 /**
  * Abstract hook processor.
  * 
  * Add new hook processors by extending this class and implement {@link #process(String)}, extract owner and repository
- * name from the hook payload and then call {@link #scmSourceReIndex(String, String)} to launch a branch/PR reindexing
- * on the mathing SCMSource.
- * 
- * TODO: Improvement - We could schedule a build only in the affected job instead of running a full reindex (since we
- *       have the branch containing the commit in the hook payload). A full reindex would be forced only when the incoming
- *       hook is resolved to a non-existent job (new branches or new PRs).
+ * name from the hook payload and then call {@link #branchChanged(SCMEvent.Type, PayloadRepo, String, String)} to update
+ * only the affected branch, or {@link #scmSourceReIndex(PayloadRepo)} to launch a full branch/PR reindexing on the
+ * matching SCMSource when the payload does not tell which head changed. Both are coalesced per repository by
+ * {@link GogsHookCoalescer}.
  */
 public abstract class HookProcessor {
 
@@ -52,27 +48,43 @@ public abstract class HookProcessor {
     public abstract void process(String payload);
 
     /**
-     * To be called by implementations once the owner and the repository have been extracted from the payload.
+     * Notifies Branch API that a single branch changed, so only that head is fetched from the matching sources.
+     *
+     * @param type the kind of change
+     * @param repository the repository from the hook payload
+     * @param branch the branch name (without refs/heads/)
+     * @param hash the new head of the branch, or null if unknown
+     */
+    protected void branchChanged(SCMEvent.Type type, PayloadRepo repository, String branch, @CheckForNull String hash) {
+        HeadRevisionCache.invalidate(repository.getOwner().getUsername(), repository.getName(), branch);
+        GogsRepositoryCache.invalidate(repository.getOwner().getUsername(), repository.getName());
+        GogsHookCoalescer.branchChanged(type, repository, branch, hash);
+    }
+
+    /**
+     * To be called by implementations once the repository has been extracted from the payload. Only the sources
+     * configured for the server the hook comes from are re-indexed.
+     *
+     * @param repository the repository from the hook payload
+     */
+    protected void scmSourceReIndex(PayloadRepo repository) {
+        String owner = repository.getOwner().getUsername();
+        HeadRevisionCache.invalidate(owner, repository.getName(), null);
+        GogsRepositoryCache.invalidate(owner, repository.getName());
+        GogsHookCoalescer.reIndex(GogsSCMSourceIndex.serverUrlOf(repository), owner, repository.getName());
+    }
+
+    /**
+     * To be called by implementations once the owner and the repository have been extracted from the payload, when
+     * the payload does not tell which server it comes from. The sources of every server are re-indexed.
      * 
      * @param owner the repository owner as configured in the SCMSource
      * @param repository the repository name as configured in the SCMSource
      */
-    protected void scmSourceReIndex(final String owner, final String repository) {
-        ACL.impersonate(ACL.SYSTEM, new Runnable() {
-            @Override 
-            public void run() {
-                for (SCMSourceOwner scmOwner : SCMSourceOwners.all()) {
-                    List<SCMSource> sources = scmOwner.getSCMSources();
-                    for (SCMSource source : sources) {
-                        // Search for the correct SCM source
-                        if (source instanceof GogsSCMSource && ((GogsSCMSource) source).getRepoOwner().equals(owner)
-                                && ((GogsSCMSource) source).getRepository().equals(repository)) {
-                            scmOwner.onSCMSourceUpdated(source);
-                        }
-                    }
-                }
-            }
-        });
+    protected void scmSourceReIndex(String owner, String repository) {
+        HeadRevisionCache.invalidate(owner, repository, null);
+        GogsRepositoryCache.invalidate(owner, repository);
+        GogsHookCoalescer.reIndex(null, owner, repository);
     }
 
 }
@@ -1,25 +1,35 @@
 package com.cloudbees.jenkins.plugins.gogs.hooks;
 
+import java.util.logging.Logger;
+
+import com.cloudbees.jenkins.plugins.gogs.HeadRevisionCache;
+import com.cloudbees.jenkins.plugins.gogs.server.client.GogsRepositoryCache;
 import com.cloudbees.jenkins.plugins.gogs.server.client.GogsWebhookPayload;
-import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPushEvent;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPullRequestEvent;
 
-import java.util.logging.Logger;
 
 public class PullRequestHookProcessor extends HookProcessor {
 
-    private static final Logger LOGGER = Logger.getLogger(PushHookProcessor.class.getName());
+    private static final Logger LOGGER = Logger.getLogger(PullRequestHookProcessor.class.getName());
 
     @Override
     public void process(String payload) {
         if (payload != null) {
-            // TODO: generalize this for BB server
-            GogsPushEvent push = GogsWebhookPayload.pushEventFromPayload(payload);
-            if (push != null) {
-                String owner = push.getRepository().getOwner().getUsername();
-                String repository = push.getRepository().getName();
-
-                LOGGER.info(String.format("Received hook from Gogs. Processing push event on %s/%s", owner, repository));
-                scmSourceReIndex(owner, repository);
+            GogsPullRequestEvent pull = GogsWebhookPayload.pullRequestEventFromPayload(payload);
+            if (pull != null && pull.getRepository() != null) {
+                String owner = pull.getRepository().getOwner().getUsername();
+                String repository = pull.getRepository().getName();
+
+                if (pull.getPullRequest() != null && pull.getNumber() > 0) {
+                    LOGGER.info(String.format("Received hook from Gogs. Processing pull request %s event on %s/%s PR-%d",
+                            pull.getAction(), owner, repository, pull.getNumber()));
+                    HeadRevisionCache.invalidate(owner, repository, "PR-" + pull.getNumber());
+                    GogsRepositoryCache.invalidate(owner, repository);
+                    GogsHookCoalescer.pullRequestChanged(GogsPullRequestSCMEvent.typeOf(pull.getAction()), pull);
+                } else {
+                    LOGGER.info(String.format("Received hook from Gogs. Processing pull request event on %s/%s", owner, repository));
+                    scmSourceReIndex(pull.getRepository());
+                }
             }
         }
     }
@@ -23,28 +23,55 @@
  */
 package com.cloudbees.jenkins.plugins.gogs.hooks;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.cloudbees.jenkins.plugins.gogs.server.client.GogsWebhookPayload;
 import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPushEvent;
 
+import jenkins.scm.api.SCMEvent;
+
 public class PushHookProcessor extends HookProcessor {
 
     private static final Logger LOGGER = Logger.getLogger(PushHookProcessor.class.getName());
 
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+
+    private static final String TAG_REF_PREFIX = "refs/tags/";
+
+    private static final String NULL_HASH = "0000000000000000000000000000000000000000";
+
     @Override
     public void process(String payload) {
         if (payload != null) {
-            // TODO: generalize this for BB server
             GogsPushEvent push = GogsWebhookPayload.pushEventFromPayload(payload);
             if (push != null) {
                 String owner = push.getRepository().getOwner().getUsername();
                 String repository = push.getRepository().getName();
+                String ref = push.getRef();
 
-                LOGGER.info(String.format("Received hook from Gogs. Processing push event on %s/%s", owner, repository));
-                scmSourceReIndex(owner, repository);
+                if (ref != null && ref.startsWith(BRANCH_REF_PREFIX)) {
+                    String branch = ref.substring(BRANCH_REF_PREFIX.length());
+                    LOGGER.info(String.format("Received hook from Gogs. Processing push event on %s/%s branch %s", owner, repository, branch));
+                    branchChanged(typeOf(push), push.getRepository(), branch, push.getAfter());
+                } else if (ref != null && ref.startsWith(TAG_REF_PREFIX)) {
+                    LOGGER.log(Level.FINE, "Ignoring tag push {0} on {1}/{2}", new Object[] {ref, owner, repository});
+                } else {
+                    LOGGER.info(String.format("Received hook from Gogs. Processing push event on %s/%s", owner, repository));
+                    scmSourceReIndex(push.getRepository());
+                }
             }
         }
     }
 
+    private static SCMEvent.Type typeOf(GogsPushEvent push) {
+        if (NULL_HASH.equals(push.getAfter())) {
+            return SCMEvent.Type.REMOVED;
+        }
+        if (NULL_HASH.equals(push.getBefore())) {
+            return SCMEvent.Type.CREATED;
+        }
+        return SCMEvent.Type.UPDATED;
+    }
+
 }
@@ -46,7 +46,6 @@ import hudson.util.NamingThreadFactory;
 import jenkins.model.Jenkins;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceOwner;
-import jenkins.scm.api.SCMSourceOwners;
 
 /**
  * {@link SCMSourceOwner} item listener that traverse the list of {@link SCMSource} and register
@@ -90,7 +89,7 @@ public class WebhookAutoRegisterListener extends ItemListener {
     private void registerHooksAsync(final SCMSourceOwner owner) {
         getExecutorService().submit(new SafeTimerTask() {
             @Override
-            public void doRun() {
+            public void doRun() throws InterruptedException {
                 registerHooks(owner);
             }
         });
@@ -99,14 +98,14 @@ public class WebhookAutoRegisterListener extends ItemListener {
     private void removeHooksAsync(final SCMSourceOwner owner) {
         getExecutorService().submit(new SafeTimerTask() {
             @Override
-            public void doRun() {
+            public void doRun() throws InterruptedException {
                 removeHooks(owner);
             }
         });
     }
 
     // synchronized just to avoid duplicated webhooks in case SCMSourceOwner is updated repeatedly and quickly
-    private synchronized void registerHooks(SCMSourceOwner owner) {
+    private synchronized void registerHooks(SCMSourceOwner owner) throws InterruptedException {
         List<GogsSCMSource> sources = getGogsSCMSources(owner);
         for (GogsSCMSource source : sources) {
             if (source.isAutoRegisterHook()) {
@@ -133,7 +132,7 @@ public class WebhookAutoRegisterListener extends ItemListener {
         }
     }
 
-    private void removeHooks(SCMSourceOwner owner) {
+    private void removeHooks(SCMSourceOwner owner) throws InterruptedException {
         List<GogsSCMSource> sources = getGogsSCMSources(owner);
         for (GogsSCMSource source : sources) {
             if (source.isAutoRegisterHook()) {
@@ -147,7 +146,7 @@ public class WebhookAutoRegisterListener extends ItemListener {
                         break;
                     }
                 }
-                if (hook != null && !isUsedSomewhereElse(owner, source.getRepoOwner(), source.getRepository())) {
+                if (hook != null && !isUsedSomewhereElse(owner, source)) {
                     LOGGER.info(String.format("Removing hook for %s/%s", source.getRepoOwner(), source.getRepository()));
                     gogs.removeCommitWebHook(hook);
                 } else {
@@ -158,17 +157,10 @@ public class WebhookAutoRegisterListener extends ItemListener {
         }
     }
 
-    private boolean isUsedSomewhereElse(SCMSourceOwner owner, String repoOwner, String repoName) {
-        Iterable<SCMSourceOwner> all = SCMSourceOwners.all();
-        for (SCMSourceOwner other : all) {
+    private boolean isUsedSomewhereElse(SCMSourceOwner owner, GogsSCMSource source) {
+        for (SCMSourceOwner other : GogsSCMSourceIndex.lookup(source.getGogsServerUrl(), source.getRepoOwner(), source.getRepository()).keySet()) {
             if (owner != other) {
-                for(SCMSource otherSource : other.getSCMSources()) {
-                    if (otherSource instanceof GogsSCMSource
-                            && ((GogsSCMSource) otherSource).getRepoOwner().equals(repoOwner)
-                            && ((GogsSCMSource) otherSource).getRepository().equals(repoName)) {
-                        return true;
-                    }
-                }
+                return true;
             }
         }
         return false;
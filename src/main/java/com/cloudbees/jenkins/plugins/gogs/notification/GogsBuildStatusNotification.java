@@ -1,10 +1,7 @@
 package com.cloudbees.jenkins.plugins.gogs.notification;
 
-import com.cloudbees.jenkins.plugins.gogs.GogsApiConnector;
 import com.cloudbees.jenkins.plugins.gogs.GogsSCMSource;
 import com.cloudbees.jenkins.plugins.gogs.Messages;
-import com.cloudbees.jenkins.plugins.gogs.api.GogsApi;
-import com.cloudbees.jenkins.plugins.gogs.api.GogsRepository;
 import com.cloudbees.jenkins.plugins.gogs.server.client.issues.GogsServerIssue;
 import hudson.Extension;
 import hudson.FilePath;
@@ -22,7 +19,6 @@ import jenkins.scm.api.SCMSourceOwner;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -42,8 +38,7 @@ public class GogsBuildStatusNotification {
 
     private static final Logger LOGGER = Logger.getLogger(GogsBuildStatusNotification.class.getName());
 
-    private static GogsServerIssue createCommitStatus(@Nonnull GogsRepository repo, @Nonnull String revision, @Nonnull GogsCommitState state, @Nonnull String url, @Nonnull String message, @Nonnull Job<?,?> job, int buildFailureLabelId) throws IOException {
-        LOGGER.log(Level.FINE, "{0}/commit/{1} {2} from {3}", new Object[] {repo.getHtmlUrl(), revision, state, url});
+    private static GogsServerIssue createCommitStatus(@Nonnull String revision, @Nonnull GogsCommitState state, @Nonnull String url, @Nonnull String message, @Nonnull Job<?,?> job, int buildFailureLabelId) {
         GogsServerIssue issue = new GogsServerIssue();
 
         String title = String.format("BUILD %s for commit: %s branch: %s", state.toString(), revision.substring(0,7), job.getName());
@@ -57,6 +52,10 @@ public class GogsBuildStatusNotification {
         return issue;
     }
 
+    /**
+     * Prepares the notification on the build thread and hands it to {@link GogsNotificationDispatcher}, which talks
+     * to Gogs in the background.
+     */
     @SuppressWarnings("deprecation") // Run.getAbsoluteUrl appropriate here
     private static void createBuildCommitStatus(Run<?,?> build, TaskListener listener) {
         try {
@@ -64,55 +63,43 @@ public class GogsBuildStatusNotification {
             //no need to continue if there is no SCMSourceOwner
             if(scmSourceOwner != null) {
                 GogsSCMSource source = getSCMSource(scmSourceOwner);
-                if (source.isAutoCreateIssues()) {
+                if (source != null && source.isAutoCreateIssues()) {
                     int buildFailureLabelId = source.getBuildFailureLabelId();
-    
-                    GogsApi gogs = GogsApiConnector.connect(source.getGogsServerUrl(), source.getRepoOwner(), source.getRepository(), GogsApiConnector.lookupScanCredentials
-                            (scmSourceOwner, null, source.getCredentialsId()));
-    
-                    GogsRepository repo = gogs.getRepository();
-                    if (repo != null) {
-                        List<Cause> causes = build.getCauses();
-                        for (Cause cause : causes) {
-                            LOGGER.info(cause.getClass().getName() + " cause short desc: " + cause.getShortDescription());
+
+                    List<Cause> causes = build.getCauses();
+                    for (Cause cause : causes) {
+                        LOGGER.fine(cause.getClass().getName() + " cause short desc: " + cause.getShortDescription());
+                    }
+
+                    SCMRevisionAction action = build.getAction(SCMRevisionAction.class);
+                    if (action != null) {
+                        SCMRevision revision = action.getRevision();
+                        String url;
+                        try {
+                            url = build.getAbsoluteUrl();
+                        } catch (IllegalStateException ise) {
+                            url = "http://unconfigured-jenkins-location/" + build.getUrl();
                         }
-    
-                        SCMRevisionAction action = build.getAction(SCMRevisionAction.class);
-                        if (action != null) {
-                            SCMRevision revision = action.getRevision();
-                            String url;
-                            try {
-                                url = build.getAbsoluteUrl();
-                            } catch (IllegalStateException ise) {
-                                url = "http://unconfigured-jenkins-location/" + build.getUrl();
-                            }
-                            boolean ignoreError = false;
-                            try {
-                                Result result = build.getResult();
-                                String revisionToNotify = resolveHeadCommit(revision);
-                                Job<?, ?> job = build.getParent();
-                                GogsServerIssue issue = null;
-                                if (Result.UNSTABLE.equals(result)) {
-                                    issue = createCommitStatus(repo, revisionToNotify, GogsCommitState.FAILURE, url, Messages.GogsBuildStatusNotification_CommitStatus_Unstable(), job, buildFailureLabelId);
-                                } else if (Result.FAILURE.equals(result)) {
-                                    issue = createCommitStatus(repo, revisionToNotify, GogsCommitState.FAILURE, url, Messages.GogsBuildStatusNotification_CommitStatus_Failure(), job, buildFailureLabelId);
-                                } else if (!Result.SUCCESS.equals(result) && result != null) { // ABORTED etc.
-                                    issue = createCommitStatus(repo, revisionToNotify, GogsCommitState.ERROR, url, Messages.GogsBuildStatusNotification_CommitStatus_Other(), job, buildFailureLabelId);
-                                }
-                                if (issue != null) {
-                                    LOGGER.info("create issue with title: " + issue.getTitle());
-                                    gogs.createIssue(issue);
-                                }
-                                if (result != null) {
-                                    listener.getLogger().format("%n" + Messages.GogsBuildStatusNotification_CommitStatusSet() + "%n%n");
-                                }
-                            } catch (FileNotFoundException fnfe) {
-                                if (!ignoreError) {
-                                    listener.getLogger().format("%nCould not update commit status, please check if your scan " +
-                                            "credentials belong to a member of the organization or a collaborator of the " +
-                                            "repository and repo:status scope is selected%n%n");
-                                    LOGGER.log(Level.FINE, null, fnfe);
-                                }
+                        Result result = build.getResult();
+                        String revisionToNotify = resolveHeadCommit(revision);
+                        Job<?, ?> job = build.getParent();
+                        GogsServerIssue issue = null;
+                        if (Result.UNSTABLE.equals(result)) {
+                            issue = createCommitStatus(revisionToNotify, GogsCommitState.FAILURE, url, Messages.GogsBuildStatusNotification_CommitStatus_Unstable(), job, buildFailureLabelId);
+                        } else if (Result.FAILURE.equals(result)) {
+                            issue = createCommitStatus(revisionToNotify, GogsCommitState.FAILURE, url, Messages.GogsBuildStatusNotification_CommitStatus_Failure(), job, buildFailureLabelId);
+                        } else if (!Result.SUCCESS.equals(result) && result != null) { // ABORTED etc.
+                            issue = createCommitStatus(revisionToNotify, GogsCommitState.ERROR, url, Messages.GogsBuildStatusNotification_CommitStatus_Other(), job, buildFailureLabelId);
+                        }
+                        if (issue != null) {
+                            LOGGER.info("queue issue with title: " + issue.getTitle());
+                            boolean queued = GogsNotificationDispatcher.submit(new GogsNotificationDispatcher.Notification(
+                                    scmSourceOwner, source.getGogsServerUrl(), source.getCredentialsId(),
+                                    source.getRepoOwner(), source.getRepository(), issue));
+                            if (queued) {
+                                listener.getLogger().format("%n" + Messages.GogsBuildStatusNotification_CommitStatusQueued() + "%n%n");
+                            } else {
+                                listener.getLogger().format("%nCould not update commit status, too many notifications are pending%n%n");
                             }
                         }
                     }
@@ -129,7 +116,7 @@ public class GogsBuildStatusNotification {
      * Returns the SCMSourceOwner associated to a Job.
      *
      * @param job A {@link Job}
-     * @return A {@link GogsApi} or null, either if a scan credentials was not provided, or a GitHubSCMSource was not defined.
+     * @return A {@link SCMSourceOwner} or null if the job is not part of one.
      * @throws IOException
      */
     private static @CheckForNull
@@ -0,0 +1,285 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.notification;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsApiConnector;
+import com.cloudbees.jenkins.plugins.gogs.GogsMetricsLogger;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsApi;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsRequestException;
+import com.cloudbees.jenkins.plugins.gogs.server.client.GogsRequestClass;
+import com.cloudbees.jenkins.plugins.gogs.server.client.issues.GogsServerIssue;
+
+import org.apache.commons.httpclient.ConnectTimeoutException;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.util.Timer;
+
+/**
+ * Sends build status notifications to Gogs in the background, so builds never wait for Gogs.
+ *
+ * Notifications are queued per repository and each queue is sent as one batch, sharing the credentials lookup and
+ * the API client. Creating an issue is not idempotent, so a notification is only retried, with an exponential
+ * backoff, when Gogs never got it: the connection could not be opened or Gogs answered 429. The others are logged and
+ * dropped, as a retry could create the same issue twice. Retries count against the capacity like new notifications.
+ * The notifications sent, failed, dropped and pending are reported to {@link GogsMetricsLogger}.
+ *
+ * Sizing can be tuned with the system properties
+ * {@code com.cloudbees.jenkins.plugins.gogs.notification.GogsNotificationDispatcher.capacity} (pending notifications,
+ * default 1000), {@code ...workers} (default 2), {@code ...maxAttempts} (default 5) and
+ * {@code ...initialBackoffMillis} (default 2000).
+ */
+final class GogsNotificationDispatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(GogsNotificationDispatcher.class.getName());
+
+    static final int CAPACITY = Math.max(1, Integer.getInteger(GogsNotificationDispatcher.class.getName() + ".capacity", 1000));
+
+    static final int WORKERS = Math.max(1, Integer.getInteger(GogsNotificationDispatcher.class.getName() + ".workers", 2));
+
+    static final int MAX_ATTEMPTS = Math.max(1, Integer.getInteger(GogsNotificationDispatcher.class.getName() + ".maxAttempts", 5));
+
+    static final long INITIAL_BACKOFF_MILLIS = Math.max(0L, Long.getLong(GogsNotificationDispatcher.class.getName() + ".initialBackoffMillis", 2000L));
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(WORKERS, WORKERS, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new NamingThreadFactory(new DaemonThreadFactory(), GogsNotificationDispatcher.class.getName()));
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Notifications waiting to be sent, keyed by {@link Notification#batchKey()}. Batches being sent are no longer
+     * listed, so notifications arriving meanwhile start a new batch.
+     */
+    private static final Map<String, List<Notification>> PENDING = new HashMap<>();
+
+    /**
+     * Number of notifications in {@link #PENDING}. Guarded by {@link #PENDING}.
+     */
+    private static int pendingCount;
+
+    /*
+     * Counters since the previous metrics report.
+     */
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong SENT = new AtomicLong();
+    private static final AtomicLong FAILED = new AtomicLong();
+
+    static {
+        GogsMetricsLogger.register(new GogsMetricsLogger.Report() {
+            @Override
+            public String drain() {
+                long sent = SENT.getAndSet(0);
+                long failed = FAILED.getAndSet(0);
+                long dropped = DROPPED.getAndSet(0);
+                int pending;
+                synchronized (PENDING) {
+                    pending = pendingCount;
+                }
+                if (sent == 0 && failed == 0 && dropped == 0 && pending == 0) {
+                    return null;
+                }
+                return String.format("Gogs notifications: %d sent, %d failed, %d dropped, %d pending",
+                        sent, failed, dropped, pending);
+            }
+        });
+    }
+
+    /**
+     * Queues a notification, or a retry of one.
+     *
+     * @return false if too many notifications are pending and this one was dropped
+     */
+    static boolean submit(Notification notification) {
+        synchronized (PENDING) {
+            if (pendingCount >= CAPACITY) {
+                DROPPED.incrementAndGet();
+                LOGGER.log(Level.WARNING, "{0} Gogs notifications pending, dropping the one for {1}.",
+                        new Object[] {pendingCount, notification.batchKey()});
+                return false;
+            }
+            enqueue(notification);
+            return true;
+        }
+    }
+
+    private static void enqueue(Notification notification) {
+        synchronized (PENDING) {
+            final String key = notification.batchKey();
+            List<Notification> batch = PENDING.get(key);
+            pendingCount++;
+            if (batch != null) {
+                batch.add(notification);
+                return;
+            }
+            batch = new ArrayList<>();
+            batch.add(notification);
+            PENDING.put(key, batch);
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    List<Notification> batch;
+                    synchronized (PENDING) {
+                        batch = PENDING.remove(key);
+                        pendingCount -= batch.size();
+                    }
+                    send(batch);
+                }
+            });
+        }
+    }
+
+    private static void send(List<Notification> batch) {
+        Notification first = batch.get(0);
+        GogsApi gogs;
+        try {
+            gogs = GogsApiConnector.connect(first.serverUrl, first.repoOwner, first.repository,
+                    GogsApiConnector.lookupScanCredentials(first.context, first.serverUrl, first.credentialsId),
+                    GogsRequestClass.NOTIFICATION);
+        } catch (IOException | RuntimeException e) {
+            // nothing was sent from this batch
+            for (Notification notification : batch) {
+                retryOrDrop(notification, e, false);
+            }
+            return;
+        }
+        for (Notification notification : batch) {
+            try {
+                LOGGER.log(Level.FINE, "{0}/{1}: {2}",
+                        new Object[] {notification.repoOwner, notification.repository, notification.issue.getTitle()});
+                gogs.createIssue(notification.issue);
+                SENT.incrementAndGet();
+            } catch (RuntimeException e) {
+                retryOrDrop(notification, e, true);
+            }
+        }
+    }
+
+    /**
+     * @param attempted whether the request creating the issue was attempted, in which case it may have reached Gogs
+     */
+    private static void retryOrDrop(final Notification notification, Exception cause, boolean attempted) {
+        if (notification.attempts >= MAX_ATTEMPTS || (attempted && !neverReachedGogs(cause))) {
+            FAILED.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Could not notify Gogs of " + notification.issue.getTitle() + " on "
+                    + notification.repoOwner + "/" + notification.repository + " after " + notification.attempts + " attempts", cause);
+            return;
+        }
+        long backoff = INITIAL_BACKOFF_MILLIS << Math.min(notification.attempts - 1, 16);
+        notification.attempts++;
+        LOGGER.log(Level.FINE, "Retrying Gogs notification on {0}/{1} in {2}ms",
+                new Object[] {notification.repoOwner, notification.repository, backoff});
+        Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                // retries count against the capacity like new notifications
+                submit(notification);
+            }
+        }, backoff, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true if the notification failed before Gogs could have created the issue
+     */
+    private static boolean neverReachedGogs(Exception cause) {
+        if (!(cause instanceof GogsRequestException)) {
+            // failed in the client, the issue may have been sent
+            return false;
+        }
+        int code = ((GogsRequestException) cause).getHttpCode();
+        if (code == 429) {
+            return true;
+        }
+        if (code != 0) {
+            return false;
+        }
+        for (Throwable t = cause.getCause(); t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof NoRouteToHostException || t instanceof UnknownHostException
+                    || t instanceof ConnectTimeoutException || t instanceof InterruptedException) {
+                return true;
+            }
+        }
+        // the request may have been processed before the connection failed
+        return false;
+    }
+
+    /**
+     * An issue to create in a repository, with what is needed to connect to it.
+     */
+    static final class Notification {
+
+        private final SCMSourceOwner context;
+
+        private final String serverUrl;
+
+        private final String credentialsId;
+
+        private final String repoOwner;
+
+        private final String repository;
+
+        private final GogsServerIssue issue;
+
+        /**
+         * The attempt about to be made, starting at 1. Only touched by the thread currently handling the notification.
+         */
+        private int attempts = 1;
+
+        Notification(SCMSourceOwner context, String serverUrl, String credentialsId, String repoOwner,
+                     String repository, GogsServerIssue issue) {
+            this.context = context;
+            this.serverUrl = serverUrl;
+            this.credentialsId = credentialsId;
+            this.repoOwner = repoOwner;
+            this.repository = repository;
+            this.issue = issue;
+        }
+
+        String batchKey() {
+            return serverUrl + " " + repoOwner + "/" + repository + " " + credentialsId;
+        }
+
+    }
+
+    private GogsNotificationDispatcher() {}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Keeps one pooled, keep-alive {@link HttpConnectionManager} per Gogs server so every {@link GogsServerAPIClient}
+ * talking to the same server reuses its connections instead of opening a new one for each request.
+ *
+ * Pool sizing can be tuned with the following system properties:
+ * <ul>
+ *   <li>{@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsConnectionPool.maxConnectionsPerHost} (default 20)</li>
+ *   <li>{@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsConnectionPool.maxTotalConnections} (default 100)</li>
+ *   <li>{@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsConnectionPool.idleTimeoutMillis} (default 60000)</li>
+ * </ul>
+ */
+final class GogsConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(GogsConnectionPool.class.getName());
+
+    static final int MAX_CONNECTIONS_PER_HOST = Integer.getInteger(GogsConnectionPool.class.getName() + ".maxConnectionsPerHost", 20);
+    static final int MAX_TOTAL_CONNECTIONS = Integer.getInteger(GogsConnectionPool.class.getName() + ".maxTotalConnections", 100);
+    static final long IDLE_TIMEOUT_MILLIS = Long.getLong(GogsConnectionPool.class.getName() + ".idleTimeoutMillis", 60 * 1000L);
+
+    private static final ConcurrentMap<String, MultiThreadedHttpConnectionManager> MANAGERS = new ConcurrentHashMap<>();
+
+    private static IdleConnectionTimeoutThread idleConnectionEvictor;
+
+    /**
+     * Returns the connection manager shared by all the clients of the given Gogs server.
+     *
+     * @param serverUrl the Gogs server base URL
+     * @return the shared connection manager, created on first use
+     */
+    @NonNull
+    static HttpConnectionManager forServer(String serverUrl) {
+        String key = String.valueOf(serverUrl);
+        MultiThreadedHttpConnectionManager manager = MANAGERS.get(key);
+        if (manager == null) {
+            MultiThreadedHttpConnectionManager created = createManager();
+            manager = MANAGERS.putIfAbsent(key, created);
+            if (manager == null) {
+                manager = created;
+                LOGGER.log(Level.FINE, "Created HTTP connection pool for {0}", key);
+                getIdleConnectionEvictor().addConnectionManager(manager);
+            } else {
+                created.shutdown();
+            }
+        }
+        return manager;
+    }
+
+    private static MultiThreadedHttpConnectionManager createManager() {
+        MultiThreadedHttpConnectionManager manager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams params = manager.getParams();
+        params.setDefaultMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        params.setMaxTotalConnections(MAX_TOTAL_CONNECTIONS);
+        params.setStaleCheckingEnabled(true);
+        return manager;
+    }
+
+    /**
+     * A single daemon thread closes connections which have been idle for longer than {@link #IDLE_TIMEOUT_MILLIS}
+     * on every pool, so Gogs (or a proxy in between) never sees long-lived idle sockets from us.
+     */
+    private static synchronized IdleConnectionTimeoutThread getIdleConnectionEvictor() {
+        if (idleConnectionEvictor == null) {
+            idleConnectionEvictor = new IdleConnectionTimeoutThread();
+            idleConnectionEvictor.setName(GogsConnectionPool.class.getName() + " idle connection evictor");
+            idleConnectionEvictor.setConnectionTimeout(IDLE_TIMEOUT_MILLIS);
+            idleConnectionEvictor.setTimeoutInterval(Math.max(1000L, IDLE_TIMEOUT_MILLIS / 2));
+            idleConnectionEvictor.start();
+        }
+        return idleConnectionEvictor;
+    }
+
+    private GogsConnectionPool() {}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
+
+import com.cloudbees.jenkins.plugins.gogs.server.client.branch.GogsServerBranch;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsCreateEvent;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPullRequestEvent;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPushEvent;
+import com.cloudbees.jenkins.plugins.gogs.server.client.pullrequest.GogsServerPullRequest;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.GogsRepositoryHook;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.GogsServerRepositories;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Shared Jackson configuration for the Gogs REST API and webhook payloads.
+ *
+ * {@link ObjectMapper} is thread-safe once configured and caches its (de)serializers, so a single instance is
+ * kept here and the readers for the hottest payload types are built upfront.
+ */
+final class GogsJson {
+
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final ObjectWriter WRITER = MAPPER.writer();
+
+    static final ObjectReader BRANCHES_READER = MAPPER.reader(
+            MAPPER.getTypeFactory().constructCollectionType(List.class, GogsServerBranch.class));
+
+    static final ObjectReader REPOSITORIES_READER = MAPPER.reader(GogsServerRepositories.class);
+
+    static final ObjectReader HOOKS_READER = MAPPER.reader(
+            MAPPER.getTypeFactory().constructCollectionType(List.class, GogsRepositoryHook.class));
+
+    static final ObjectReader PULL_REQUESTS_READER = MAPPER.reader(
+            MAPPER.getTypeFactory().constructCollectionType(List.class, GogsServerPullRequest.class));
+
+    static final ObjectReader PULL_REQUEST_EVENT_READER = MAPPER.reader(GogsPullRequestEvent.class);
+
+    static final ObjectReader PUSH_EVENT_READER = MAPPER.reader(GogsPushEvent.class);
+
+    static final ObjectReader CREATE_EVENT_READER = MAPPER.reader(GogsCreateEvent.class);
+
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    /**
+     * @param clazz the type to bind JSON documents to
+     * @return a cached reader for the given type
+     */
+    @NonNull
+    static ObjectReader reader(@NonNull Class<?> clazz) {
+        ObjectReader reader = READERS.get(clazz);
+        if (reader == null) {
+            reader = MAPPER.reader(clazz);
+            ObjectReader existing = READERS.putIfAbsent(clazz, reader);
+            if (existing != null) {
+                reader = existing;
+            }
+        }
+        return reader;
+    }
+
+    private GogsJson() {}
+
+}
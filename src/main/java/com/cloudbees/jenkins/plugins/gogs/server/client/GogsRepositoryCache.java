@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import java.util.concurrent.TimeUnit;
+
+import com.cloudbees.jenkins.plugins.gogs.TtlCache;
+import com.cloudbees.jenkins.plugins.gogs.api.GogsRepository;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Keeps repository metadata for a short while, so repository descriptions, privacy and URLs read by the navigator,
+ * the notifications and {@link GogsServerAPIClient#isPrivate()} are not fetched from Gogs over and over.
+ *
+ * Entries are kept per server, repository and user, expire after
+ * {@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsRepositoryCache.ttlSeconds} (default 300), and are
+ * dropped when a hook is received for the repository. At most
+ * {@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsRepositoryCache.maxEntries} (default 1000) are kept.
+ */
+public final class GogsRepositoryCache {
+
+    static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(
+            Math.max(0L, Long.getLong(GogsRepositoryCache.class.getName() + ".ttlSeconds", 300L)));
+
+    static final int MAX_ENTRIES = Math.max(1, Integer.getInteger(GogsRepositoryCache.class.getName() + ".maxEntries", 1000));
+
+    /**
+     * Repositories keyed by server, "repoOwner/repository" and user.
+     */
+    private static final TtlCache<GogsRepository> REPOSITORIES = new TtlCache<>(TTL_MILLIS, MAX_ENTRIES);
+
+    @CheckForNull
+    static GogsRepository get(@CheckForNull String serverUrl, @NonNull String repoOwner, @NonNull String repository,
+                              @NonNull String user) {
+        return REPOSITORIES.get(TtlCache.key(serverUrl, repoOwner + "/" + repository, user));
+    }
+
+    static void put(@CheckForNull String serverUrl, @NonNull String repoOwner, @NonNull String repository,
+                    @NonNull String user, @NonNull GogsRepository value) {
+        REPOSITORIES.put(TtlCache.key(serverUrl, repoOwner + "/" + repository, user), value);
+    }
+
+    /**
+     * Forgets a repository on every server and for every user, as hooks do not tell which server sent them.
+     *
+     * @param repoOwner the repository owner
+     * @param repository the repository name
+     */
+    public static void invalidate(@NonNull String repoOwner, @NonNull String repository) {
+        REPOSITORIES.invalidate(1, repoOwner + "/" + repository);
+    }
+
+    private GogsRepositoryCache() {}
+
+}
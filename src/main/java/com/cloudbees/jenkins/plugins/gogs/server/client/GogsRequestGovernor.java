@@ -0,0 +1,276 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cloudbees.jenkins.plugins.gogs.GogsMetricsLogger;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Throttles the HTTP requests sent to one Gogs server. Each {@link GogsRequestClass} gets its own share of the
+ * limits: half for scans, a quarter for hook triggered fetches and a quarter for notifications, and at least one
+ * request at a time for each. A share is a token bucket capping the request rate and a fair semaphore capping the
+ * requests in flight, so callers only queue behind requests of their own kind: a large organization scan slows
+ * itself down, not the notifications or the hook fetches.
+ *
+ * Both limits are off unless configured with the following system properties:
+ * <ul>
+ *   <li>{@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsRequestGovernor.requestsPerSecond}
+ *   (default 0, meaning no rate limit)</li>
+ *   <li>{@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsRequestGovernor.burst} (default 10)</li>
+ *   <li>{@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsRequestGovernor.maxInFlight}
+ *   (default 0, meaning no limit)</li>
+ * </ul>
+ *
+ * The time requests spent waiting is reported to {@link GogsMetricsLogger} for the servers that made requests wait.
+ */
+final class GogsRequestGovernor {
+
+    private static final Logger LOGGER = Logger.getLogger(GogsRequestGovernor.class.getName());
+
+    static final double REQUESTS_PER_SECOND = parseRate(System.getProperty(GogsRequestGovernor.class.getName() + ".requestsPerSecond"));
+    static final int BURST = Math.max(1, Integer.getInteger(GogsRequestGovernor.class.getName() + ".burst", 10));
+    static final int MAX_IN_FLIGHT = Math.max(0, Integer.getInteger(GogsRequestGovernor.class.getName() + ".maxInFlight", 0));
+
+    /**
+     * Waits longer than this are logged, they usually mean the limits are too tight for the load.
+     */
+    private static final long SLOW_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ConcurrentMap<String, GogsRequestGovernor> GOVERNORS = new ConcurrentHashMap<>();
+
+    private final String serverUrl;
+    private final Map<GogsRequestClass, Share> shares = new EnumMap<>(GogsRequestClass.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /*
+     * Counters since the previous metrics report.
+     */
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private GogsRequestGovernor(String serverUrl) {
+        this.serverUrl = serverUrl;
+        for (GogsRequestClass requestClass : GogsRequestClass.values()) {
+            shares.put(requestClass, new Share(requestClass == GogsRequestClass.SCAN ? 0.5 : 0.25));
+        }
+    }
+
+    /**
+     * Returns the governor shared by all the clients of the given Gogs server.
+     *
+     * @param serverUrl the Gogs server base URL
+     * @return the shared governor, created on first use
+     */
+    @NonNull
+    static GogsRequestGovernor forServer(String serverUrl) {
+        String key = String.valueOf(serverUrl);
+        GogsRequestGovernor governor = GOVERNORS.get(key);
+        if (governor == null) {
+            final GogsRequestGovernor created = new GogsRequestGovernor(key);
+            governor = GOVERNORS.putIfAbsent(key, created);
+            if (governor == null) {
+                governor = created;
+                GogsMetricsLogger.register(new GogsMetricsLogger.Report() {
+                    @Override
+                    public String drain() {
+                        return created.drainMetrics();
+                    }
+                });
+            }
+        }
+        return governor;
+    }
+
+    /**
+     * Blocks until the request can be sent. The returned permit must be released once the response is consumed.
+     *
+     * @param requestClass what the request is made for, selecting the share it waits in
+     * @return the permit for one request
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @NonNull
+    Permit acquire(@NonNull GogsRequestClass requestClass) throws InterruptedException {
+        Share share = shares.get(requestClass);
+        long start = System.nanoTime();
+        long delay = share.reserveToken();
+        try {
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            if (share.slots != null) {
+                share.slots.acquire();
+            }
+        } catch (InterruptedException e) {
+            // the request is not sent, so the callers queued behind must not pay for its token
+            share.returnToken();
+            throw e;
+        }
+        inFlight.incrementAndGet();
+        long waited = System.nanoTime() - start;
+        acquisitions.incrementAndGet();
+        if (waited > 0) {
+            waitNanos.addAndGet(waited);
+            long max;
+            while (waited > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, waited)) {
+                // retry
+            }
+        }
+        if (delay > 0 || waited > TimeUnit.MILLISECONDS.toNanos(1)) {
+            delayed.incrementAndGet();
+        }
+        if (waited > SLOW_WAIT_NANOS) {
+            LOGGER.log(Level.FINE, "Waited {0}ms for a {1} request slot on {2}",
+                    new Object[]{TimeUnit.NANOSECONDS.toMillis(waited), requestClass, serverUrl});
+        }
+        return new Permit(share);
+    }
+
+    /**
+     * @return what the waits cost since the previous call, or null if no request waited
+     */
+    @CheckForNull
+    private String drainMetrics() {
+        long acquired = acquisitions.getAndSet(0);
+        long waitingRequests = delayed.getAndSet(0);
+        long waited = waitNanos.getAndSet(0);
+        long longest = maxWaitNanos.getAndSet(0);
+        if (waitingRequests == 0) {
+            return null;
+        }
+        return String.format("%s: %d of %d requests waited for a slot, %dms in total, longest wait %dms, %d in flight",
+                serverUrl, waitingRequests, acquired, TimeUnit.NANOSECONDS.toMillis(waited),
+                TimeUnit.NANOSECONDS.toMillis(longest), inFlight.get());
+    }
+
+    private static double parseRate(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Ignoring invalid request rate {0}", value);
+            return 0;
+        }
+    }
+
+    /**
+     * The part of the limits given to one {@link GogsRequestClass}.
+     */
+    private static final class Share {
+
+        private final double rate;
+
+        private final int burst;
+
+        /**
+         * The in-flight slots of the share, or null if in-flight requests are not limited.
+         */
+        @CheckForNull
+        private final Semaphore slots;
+
+        private double tokens;
+
+        private long lastRefill = System.nanoTime();
+
+        Share(double weight) {
+            rate = REQUESTS_PER_SECOND * weight;
+            burst = Math.max(1, (int) (BURST * weight));
+            slots = MAX_IN_FLIGHT > 0 ? new Semaphore(Math.max(1, (int) (MAX_IN_FLIGHT * weight)), true) : null;
+            tokens = burst;
+        }
+
+        /**
+         * Takes one token from the bucket, going into debt when it is empty so that concurrent callers queue up in
+         * arrival order.
+         *
+         * @return how long the caller has to wait before using its token, in nanoseconds
+         */
+        synchronized long reserveToken() {
+            if (rate <= 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+            lastRefill = now;
+            tokens -= 1;
+            if (tokens >= 0) {
+                return 0;
+            }
+            return (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        /**
+         * Gives back a token reserved by a caller that gave up waiting.
+         */
+        synchronized void returnToken() {
+            if (rate > 0) {
+                tokens = Math.min(burst, tokens + 1);
+            }
+        }
+    }
+
+    /**
+     * Allowance for one request, returning its in-flight slot when released.
+     */
+    final class Permit {
+
+        private final Share share;
+
+        private boolean released;
+
+        private Permit(Share share) {
+            this.share = share;
+        }
+
+        void release() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            inFlight.decrementAndGet();
+            if (share.slots != null) {
+                share.slots.release();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpMethod;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Conditional request cache for Gogs REST reads.
+ *
+ * Keeps the ETag/Last-Modified validators returned by the server together with the object parsed from the response,
+ * so that a later read of the same URL with the same credentials can be answered from memory on a 304 Not Modified.
+ * Responses without validators are never cached.
+ *
+ * The number of entries is bounded (least recently used entries are evicted first) and can be tuned with the
+ * {@code com.cloudbees.jenkins.plugins.gogs.server.client.GogsResponseCache.maxEntries} system property.
+ */
+final class GogsResponseCache {
+
+    static final int MAX_ENTRIES = Math.max(1, Integer.getInteger(GogsResponseCache.class.getName() + ".maxEntries", 2000));
+
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    @CheckForNull
+    static Entry get(@NonNull String key) {
+        synchronized (ENTRIES) {
+            return ENTRIES.get(key);
+        }
+    }
+
+    /**
+     * Remembers the value parsed from a successful response, if the response carries any validator.
+     *
+     * @param key the cache key (URL plus credentials)
+     * @param method the executed method, used to read the validators
+     * @param value the object parsed from the response body
+     */
+    static void put(@NonNull String key, @NonNull HttpMethod method, @CheckForNull Object value) {
+        String etag = headerValue(method, "ETag");
+        String lastModified = headerValue(method, "Last-Modified");
+        synchronized (ENTRIES) {
+            if (value == null || (etag == null && lastModified == null)) {
+                ENTRIES.remove(key);
+            } else {
+                ENTRIES.put(key, new Entry(etag, lastModified, value));
+            }
+        }
+    }
+
+    @CheckForNull
+    private static String headerValue(HttpMethod method, String name) {
+        Header header = method.getResponseHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    static final class Entry {
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private final Object value;
+
+        Entry(String etag, String lastModified, Object value) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+
+        /**
+         * Turns the request into a conditional one.
+         */
+        void applyTo(@NonNull HttpMethod method) {
+            if (etag != null) {
+                method.setRequestHeader("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                method.setRequestHeader("If-Modified-Since", lastModified);
+            }
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+    }
+
+    private GogsResponseCache() {}
+
+}
@@ -28,8 +28,16 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,25 +46,37 @@ import com.cloudbees.jenkins.plugins.gogs.server.client.repository.*;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpMethodBase;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.URIException;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
 import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.HeadMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.jackson.JsonGenerationException;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.JsonMappingException;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.map.type.CollectionType;
+import org.codehaus.jackson.map.ObjectReader;
 
 import com.cloudbees.jenkins.plugins.gogs.server.client.branch.GogsServerBranch;
+import com.cloudbees.jenkins.plugins.gogs.server.client.pullrequest.GogsServerPullRequest;
+import com.cloudbees.jenkins.plugins.gogs.server.client.tree.GogsServerTree;
+import com.cloudbees.jenkins.plugins.gogs.server.client.tree.GogsServerTreeEntry;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.ProxyConfiguration;
+import hudson.Util;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import hudson.util.Secret;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
@@ -69,7 +89,7 @@ public class GogsServerAPIClient implements GogsApi {
 
     private static final Logger LOGGER = Logger.getLogger(GogsServerAPIClient.class.getName());
     private static final String API_BASE_PATH = "/api/v1";
-    private static final String API_REPOSITORIES_PATH = API_BASE_PATH + "/repos/search?q=_&uid=%d&limit=%d";
+    private static final String API_REPOSITORIES_PATH = API_BASE_PATH + "/repos/search?q=_&uid=%d&limit=%d&page=%d";
     private static final String API_REPOSITORY_PATH = API_BASE_PATH + "/repos/%s/%s";
     private static final String API_BRANCHES_PATH = API_BASE_PATH + "/repos/%s/%s/branches";
     private static final String API_BRANCH_PATH = API_BASE_PATH + "/repos/%s/%s/branches/%s";
@@ -77,7 +97,36 @@ public class GogsServerAPIClient implements GogsApi {
     private static final String API_USER_PATH = API_BASE_PATH + "/users/%s";
     private static final String API_CONTENT_PATH = API_BASE_PATH + "/repos/%s/%s/raw/%s/%s";
     private static final String API_ISSUES_PATH = API_BASE_PATH + "/repos/%s/%s/issues";
-    private static final int DEFAULT_REPOSITORY_READ_LIMIT = 1000;
+    private static final String API_PULL_REQUESTS_PATH = API_BASE_PATH + "/repos/%s/%s/pulls?state=open";
+    private static final String API_PULL_REQUEST_PATH = API_BASE_PATH + "/repos/%s/%s/pulls/%d";
+    private static final String API_TREE_PATH = API_BASE_PATH + "/repos/%s/%s/git/trees/%s";
+    /**
+     * Repositories requested per search page. Gogs caps the page size server side (50 by default).
+     */
+    private static final int REPOSITORY_PAGE_SIZE = Integer.getInteger(GogsServerAPIClient.class.getName() + ".repositoryPageSize", 50);
+
+    /**
+     * Fetches the next page of a listing while the caller is still working on the current one.
+     */
+    private static final ExecutorService PAGE_PREFETCHER = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), GogsServerAPIClient.class.getName() + ".prefetch"));
+
+    /**
+     * Whether each server (by base URL) answers HEAD requests on raw contents the same way as GET requests.
+     * Absent until a HEAD answer could be checked against a GET one.
+     */
+    private static final ConcurrentMap<String, Boolean> HEAD_SUPPORTED = new ConcurrentHashMap<>();
+
+    /**
+     * Whether each server (by base URL) lists trees through the API. Absent until a tree request that had to succeed,
+     * on the head of a listed branch, tells.
+     */
+    private static final ConcurrentMap<String, Boolean> TREES_SUPPORTED = new ConcurrentHashMap<>();
+
+    /**
+     * Responses up to this size are read to the end so their connection can be reused, larger ones are aborted.
+     */
+    private static final long DRAIN_LIMIT_BYTES = 8 * 1024;
 
     /**
      * Repository owner.
@@ -103,6 +152,11 @@ public class GogsServerAPIClient implements GogsApi {
 
     private String baseURL;
 
+    /**
+     * What the requests of this client are made for, see {@link GogsRequestGovernor}.
+     */
+    private GogsRequestClass requestClass = GogsRequestClass.SCAN;
+
     public GogsServerAPIClient(String baseURL, String username, String password, String owner, String repositoryName) {
         if (!StringUtils.isBlank(username) && !StringUtils.isBlank(password)) {
             this.credentials = new UsernamePasswordCredentials(username, password);
@@ -121,6 +175,12 @@ public class GogsServerAPIClient implements GogsApi {
         this.baseURL = baseURL;
     }
 
+    public GogsServerAPIClient(String baseURL, String owner, String repositoryName, StandardUsernamePasswordCredentials creds,
+                               GogsRequestClass requestClass) {
+        this(baseURL, owner, repositoryName, creds);
+        this.requestClass = requestClass;
+    }
+
     public GogsServerAPIClient(String baseURL, String owner, StandardUsernamePasswordCredentials creds) {
         this(baseURL, owner, null, creds);
     }
@@ -143,13 +203,20 @@ public class GogsServerAPIClient implements GogsApi {
 
     /** {@inheritDoc} */
     @Override
-    public GogsRepository getRepository() {
+    public GogsRepository getRepository() throws InterruptedException {
         if (repositoryName == null) {
             return null;
         }
-        String response = getRequest(String.format(API_REPOSITORY_PATH, getOwner(), repositoryName));
+        GogsRepository cached = GogsRepositoryCache.get(baseURL, getOwner(), repositoryName, cacheUser());
+        if (cached != null) {
+            return cached;
+        }
         try {
-            return parse(response, GogsServerRepository.class);
+            GogsRepository repository = getCachedRequest(String.format(API_REPOSITORY_PATH, getOwner(), repositoryName), GogsServerRepository.class);
+            if (repository != null) {
+                GogsRepositoryCache.put(baseURL, getOwner(), repositoryName, cacheUser(), repository);
+            }
+            return repository;
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "invalid repository response.", e);
         }
@@ -158,28 +225,72 @@ public class GogsServerAPIClient implements GogsApi {
 
     /** {@inheritDoc} */
     @Override
-    public List<GogsServerBranch> getBranches() {
-        String url = String.format(API_BRANCHES_PATH, getOwner(), repositoryName, 0);
+    public List<GogsServerBranch> getBranches() throws InterruptedException {
+        String url = String.format(API_BRANCHES_PATH, getOwner(), repositoryName);
 
         try {
-            String response = getRequest(url);
-            List<GogsServerBranch> branches = parseCollection(response, GogsServerBranch.class);
-
-            return branches;
+            return getCachedRequest(url, GogsJson.BRANCHES_READER);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "invalid branches response", e);
         }
         return Collections.EMPTY_LIST;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Shares the response cache of {@link #getBranches()}: the listing is revalidated with a conditional request and
+     * replayed from memory when Gogs answers 304 Not Modified. A listing is only cached once it was read to the end.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void visitBranches(@NonNull final GogsVisitor<? super GogsBranch> visitor) throws IOException, InterruptedException {
+        String path = String.format(API_BRANCHES_PATH, getOwner(), repositoryName);
+        String key = cacheKey(path);
+        GogsResponseCache.Entry cached = GogsResponseCache.get(key);
+        GetMethod httpget = new GetMethod(this.baseURL + path);
+        List<GogsServerBranch> cachedBranches = null;
+        if (cached != null) {
+            cached.applyTo(httpget);
+            cachedBranches = (List<GogsServerBranch>) cached.getValue();
+        }
+        List<GogsServerBranch> branches = executeGet(httpget, new ResponseParser<List<GogsServerBranch>>() {
+            @Override
+            public List<GogsServerBranch> parse(JsonParser parser) throws IOException, InterruptedException {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    // repositories without any branch yet answer with a message instead of a listing
+                    LOGGER.log(Level.FINE, "No branches listed for {0}/{1}", new Object[] {getOwner(), repositoryName});
+                    return new ArrayList<>();
+                }
+                final List<GogsServerBranch> read = new ArrayList<>();
+                boolean complete = visitArray(parser, GogsJson.reader(GogsServerBranch.class), new GogsVisitor<GogsServerBranch>() {
+                    @Override
+                    public boolean visit(@NonNull GogsServerBranch branch) throws IOException, InterruptedException {
+                        read.add(branch);
+                        return visitor.visit(branch);
+                    }
+                });
+                return complete ? read : null;
+            }
+        }, cachedBranches);
+        if (cachedBranches != null && branches == cachedBranches) {
+            for (GogsServerBranch branch : cachedBranches) {
+                if (!visitor.visit(branch)) {
+                    return;
+                }
+            }
+        } else if (branches != null) {
+            GogsResponseCache.put(key, httpget, Collections.unmodifiableList(branches));
+        }
+    }
+
     @Override
-    public GogsServerBranch getBranch(String name) {
+    public GogsServerBranch getBranch(String name) throws InterruptedException {
         if (repositoryName == null) {
             return null;
         }
-        String response = getRequest(String.format(API_BRANCH_PATH, getOwner(), repositoryName, name));
         try {
-            return parse(response, GogsServerBranch.class);
+            return getRequest(String.format(API_BRANCH_PATH, getOwner(), repositoryName, name), GogsServerBranch.class);
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "invalid branch response.", e);
         }
@@ -187,6 +298,46 @@ public class GogsServerAPIClient implements GogsApi {
 
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<GogsServerPullRequest> getPullRequests() throws InterruptedException {
+        if (repositoryName == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return getRequest(String.format(API_PULL_REQUESTS_PATH, getOwner(), repositoryName), GogsJson.PULL_REQUESTS_READER);
+        } catch (GogsRequestException e) {
+            if (e.getHttpCode() == HttpStatus.SC_NOT_FOUND) {
+                // older Gogs releases do not expose pull requests through the API
+                LOGGER.log(Level.FINE, "No pull request API for {0}/{1}", new Object[] {getOwner(), repositoryName});
+                return Collections.emptyList();
+            }
+            throw e;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "invalid pull requests response", e);
+        }
+        return Collections.emptyList();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public GogsServerPullRequest getPullRequest(int number) throws InterruptedException {
+        if (repositoryName == null) {
+            return null;
+        }
+        try {
+            return getRequest(String.format(API_PULL_REQUEST_PATH, getOwner(), repositoryName, number), GogsServerPullRequest.class);
+        } catch (GogsRequestException e) {
+            if (e.getHttpCode() == HttpStatus.SC_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "invalid pull request response.", e);
+        }
+        return null;
+    }
+
     @Override
     public void registerCommitWebHook(GogsWebHook hook) {
         try {
@@ -211,13 +362,11 @@ public class GogsServerAPIClient implements GogsApi {
     }
 
     @Override
-    public List<GogsRepositoryHook> getWebHooks() {
+    public List<GogsRepositoryHook> getWebHooks() throws InterruptedException {
         try {
             String url = String.format(API_REPOSITORY_PATH, getOwner(), repositoryName) + "/hooks";
             LOGGER.info("getWebHooks url: " + url);
-            String response = getRequest(url);
-            List<GogsRepositoryHook> repositoryHooks = parseCollection(response, GogsRepositoryHook.class);
-            return repositoryHooks;
+            return getRequest(url, GogsJson.HOOKS_READER);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "invalid hooks response", e);
         }
@@ -228,13 +377,12 @@ public class GogsServerAPIClient implements GogsApi {
      * Gogs Organization.
      */
     @Override
-    public GogsOrganization getOrganization() {
+    public GogsOrganization getOrganization() throws InterruptedException {
         if (userCentric) {
             return null;
         } else {
-            String response = getRequest(String.format(API_ORGANIZATION_PATH, getOwner()));
             try {
-                return parse(response, GogsServerOrganization.class);
+                return getCachedRequest(String.format(API_ORGANIZATION_PATH, getOwner()), GogsServerOrganization.class);
             } catch (IOException e) {
                 LOGGER.log(Level.WARNING, "invalid organization response.", e);
             }
@@ -244,15 +392,17 @@ public class GogsServerAPIClient implements GogsApi {
 
     /** {@inheritDoc} */
     @Override
-    public List<GogsServerRepository> getRepositories() {
-        GogsRepositoryOwner user = getUser();
-        String url = String.format(API_REPOSITORIES_PATH, user.getId(), DEFAULT_REPOSITORY_READ_LIMIT);
-
+    public List<GogsServerRepository> getRepositories() throws InterruptedException {
+        final List<GogsServerRepository> repositories = new ArrayList<>();
         try {
-            String response = getRequest(url);
-            GogsServerRepositories wrappedRepos = parse(response, GogsServerRepositories.class);
-
-            return wrappedRepos.getData();
+            visitServerRepositories(new GogsVisitor<GogsServerRepository>() {
+                @Override
+                public boolean visit(@NonNull GogsServerRepository repository) {
+                    repositories.add(repository);
+                    return true;
+                }
+            });
+            return repositories;
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "invalid repositories response", e);
         }
@@ -261,13 +411,88 @@ public class GogsServerAPIClient implements GogsApi {
 
     /** {@inheritDoc} */
     @Override
-    public GogsRepositoryOwner getUser() {
+    public void visitRepositories(@NonNull GogsVisitor<? super GogsRepository> visitor) throws IOException, InterruptedException {
+        visitServerRepositories(visitor);
+    }
+
+    /**
+     * Walks the repository search results page by page.
+     * The next page is requested in background while the visitor works on the current one, so a scan never waits
+     * for the server between pages and never holds more than two pages in memory.
+     */
+    private void visitServerRepositories(@NonNull GogsVisitor<? super GogsServerRepository> visitor) throws IOException, InterruptedException {
+        GogsRepositoryOwner user = getUser();
+        if (user == null) {
+            throw new GogsRequestException(0, "Could not resolve Gogs user " + getOwner());
+        }
+        int uid = user.getId();
+        int page = 1;
+        String previousFirst = null;
+        Future<List<GogsServerRepository>> next = fetchRepositoryPage(uid, page);
+        try {
+            while (true) {
+                List<GogsServerRepository> repositories = awaitPage(next);
+                if (repositories.isEmpty()) {
+                    return;
+                }
+                String first = repositories.get(0).getFullName();
+                if (first != null && first.equals(previousFirst)) {
+                    // older Gogs versions ignore the page parameter and keep answering with the first page
+                    LOGGER.log(Level.WARNING, "{0} does not support paginated repository search, stopping at page {1}",
+                            new Object[] {baseURL, page});
+                    return;
+                }
+                previousFirst = first;
+                next = fetchRepositoryPage(uid, ++page);
+                for (GogsServerRepository repository : repositories) {
+                    if (!visitor.visit(repository)) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            next.cancel(true);
+        }
+    }
+
+    private Future<List<GogsServerRepository>> fetchRepositoryPage(int uid, int page) {
+        final String url = String.format(API_REPOSITORIES_PATH, uid, REPOSITORY_PAGE_SIZE, page);
+        return PAGE_PREFETCHER.submit(new Callable<List<GogsServerRepository>>() {
+            @Override
+            public List<GogsServerRepository> call() throws IOException, InterruptedException {
+                GogsServerRepositories wrappedRepos = getRequest(url, GogsJson.REPOSITORIES_READER);
+                List<GogsServerRepository> data = wrappedRepos.getData();
+                return data != null ? data : Collections.<GogsServerRepository>emptyList();
+            }
+        });
+    }
+
+    private static <T> T awaitPage(Future<T> page) throws IOException, InterruptedException {
+        try {
+            return page.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public GogsRepositoryOwner getUser() throws InterruptedException {
         if (userCentric) {
             return null;
         } else {
-            String response = getRequest(String.format(API_USER_PATH, getOwner()));
             try {
-                return parse(response, GogsServerRepositoryOwner.class);
+                return getCachedRequest(String.format(API_USER_PATH, getOwner()), GogsServerRepositoryOwner.class);
             } catch (IOException e) {
                 LOGGER.log(Level.WARNING, "invalid user response.", e);
             }
@@ -275,61 +500,248 @@ public class GogsServerAPIClient implements GogsApi {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Existence is checked with a HEAD request, so the file is never downloaded. Servers answering 404 to HEAD for
+     * files a GET finds are detected on the first mismatch and then checked with GET requests, whose body is not
+     * read when it is large.
+     */
+    @Override
+    public boolean checkPathExists(String ref, String path) throws InterruptedException {
+        String url = String.format(API_CONTENT_PATH, getOwner(), repositoryName, ref, path);
+        LOGGER.fine("checkPathExists url: " + url);
+        String server = String.valueOf(baseURL);
+        Boolean headSupported = HEAD_SUPPORTED.get(server);
+        int headStatus = -1;
+        if (!Boolean.FALSE.equals(headSupported)) {
+            headStatus = getRequestStatus(new HeadMethod(this.baseURL + url));
+            if (headStatus == HttpStatus.SC_OK) {
+                HEAD_SUPPORTED.put(server, Boolean.TRUE);
+                return true;
+            }
+            if (headStatus == HttpStatus.SC_NOT_FOUND && Boolean.TRUE.equals(headSupported)) {
+                return false;
+            }
+            if (headStatus == HttpStatus.SC_METHOD_NOT_ALLOWED || headStatus == HttpStatus.SC_NOT_IMPLEMENTED) {
+                HEAD_SUPPORTED.put(server, Boolean.FALSE);
+            } else if (headStatus != HttpStatus.SC_NOT_FOUND) {
+                throw new GogsRequestException(Math.max(headStatus, 0), "Could not check " + path + " in " + getOwner() + "/" + repositoryName + ". Status: " + headStatus);
+            }
+        }
+        int status = getRequestStatus(new GetMethod(this.baseURL + url));
+        if (headStatus == HttpStatus.SC_NOT_FOUND && (status == HttpStatus.SC_OK || status == HttpStatus.SC_NOT_FOUND)) {
+            // the HEAD answer can now be checked against the GET one
+            HEAD_SUPPORTED.put(server, status == HttpStatus.SC_NOT_FOUND);
+        }
+        if (status == HttpStatus.SC_OK) {
+            return true;
+        }
+        if (status == HttpStatus.SC_NOT_FOUND) {
+            return false;
+        }
+        // anything else says nothing about the path, so do not let callers take it as a definitive answer
+        throw new GogsRequestException(Math.max(status, 0), "Could not check " + path + " in " + getOwner() + "/" + repositoryName + ". Status: " + status);
+    }
+
     /** {@inheritDoc} */
     @Override
-    public boolean checkPathExists(String branch, String path) {
-        String url = String.format(API_CONTENT_PATH, getOwner(), repositoryName, branch, path);
-        LOGGER.info("checkPathExists url: " + url);
-        int status = getRequestStatus(url);
-        return status == HttpStatus.SC_OK;
+    public List<GogsServerTreeEntry> getTree(String sha) throws InterruptedException {
+        String server = String.valueOf(baseURL);
+        if (repositoryName == null || Boolean.FALSE.equals(TREES_SUPPORTED.get(server))) {
+            return null;
+        }
+        try {
+            GogsServerTree tree = getRequest(String.format(API_TREE_PATH, getOwner(), repositoryName, sha), GogsServerTree.class);
+            TREES_SUPPORTED.put(server, Boolean.TRUE);
+            if (tree == null || tree.getTree() == null || tree.isTruncated()) {
+                return null;
+            }
+            return tree.getTree();
+        } catch (GogsRequestException e) {
+            if (e.getHttpCode() == HttpStatus.SC_NOT_FOUND) {
+                // also the answer for hidden repositories and commits missing from this one, e.g. fork commits
+                if (!TREES_SUPPORTED.containsKey(server)) {
+                    learnTreeSupport(server);
+                }
+                return null;
+            }
+            throw e;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "invalid tree response.", e);
+        }
+        return null;
+    }
+
+    /**
+     * Lists the tree of the first branch of the repository, which has to exist, to tell whether the server has a
+     * tree API. Nothing is learnt if the repository has no visible branch or the request fails otherwise.
+     */
+    private void learnTreeSupport(String server) throws InterruptedException {
+        final GogsBranch[] first = new GogsBranch[1];
+        try {
+            visitBranches(new GogsVisitor<GogsBranch>() {
+                @Override
+                public boolean visit(@NonNull GogsBranch branch) {
+                    first[0] = branch;
+                    return false;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not list the branches of " + getOwner() + "/" + repositoryName, e);
+            return;
+        }
+        if (first[0] == null || first[0].getCommit() == null) {
+            return;
+        }
+        try {
+            getRequest(String.format(API_TREE_PATH, getOwner(), repositoryName, first[0].getCommit().getHash()), GogsServerTree.class);
+            TREES_SUPPORTED.put(server, Boolean.TRUE);
+        } catch (GogsRequestException e) {
+            if (e.getHttpCode() == HttpStatus.SC_NOT_FOUND) {
+                LOGGER.log(Level.FINE, "No tree API on {0}", server);
+                TREES_SUPPORTED.put(server, Boolean.FALSE);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not list a tree of " + getOwner() + "/" + repositoryName, e);
+        }
     }
 
     @Override
-    public boolean isPrivate() {
+    public boolean isPrivate() throws InterruptedException {
         GogsRepository repo = getRepository();
         return repo != null ? repo.isPrivate() : false;
     }
 
 
-    private <T> T parse(String response, Class<T> clazz) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(response, clazz);
+    /**
+     * Consumes a successful response body straight from the connection.
+     */
+    private interface ResponseParser<T> {
+        T parse(JsonParser parser) throws IOException, InterruptedException;
     }
 
+    private <T> T getRequest(String path, Class<T> clazz) throws IOException, InterruptedException {
+        return getRequest(path, GogsJson.reader(clazz));
+    }
 
-    private <T> List<T> parseCollection(String response, Class<T> clazz) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        final CollectionType javaType =
-                mapper.getTypeFactory().constructCollectionType(List.class, clazz);
-        return mapper.readValue(response, javaType);
+    private <T> T getRequest(String path, ObjectReader reader) throws IOException, InterruptedException {
+        return getRequest(new GetMethod(this.baseURL + path), reader, null);
     }
 
-    private String getRequest(String path) {
+    private <T> T getCachedRequest(String path, Class<T> clazz) throws IOException, InterruptedException {
+        return getCachedRequest(path, GogsJson.reader(clazz));
+    }
+
+    /**
+     * Like {@link #getRequest(String, ObjectReader)}, but revalidates a previously cached response with a conditional
+     * request and answers from memory when Gogs replies 304 Not Modified.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getCachedRequest(String path, ObjectReader reader) throws IOException, InterruptedException {
+        String key = cacheKey(path);
+        GogsResponseCache.Entry cached = GogsResponseCache.get(key);
         GetMethod httpget = new GetMethod(this.baseURL + path);
+        T cachedValue = null;
+        if (cached != null) {
+            cached.applyTo(httpget);
+            cachedValue = (T) cached.getValue();
+        }
+        T value = getRequest(httpget, reader, cachedValue);
+        if (value != cachedValue) {
+            if (value instanceof List) {
+                // the cached listing is handed to every caller, none of them may change it
+                value = (T) Collections.unmodifiableList((List<?>) value);
+            }
+            GogsResponseCache.put(key, httpget, value);
+        }
+        return value;
+    }
+
+    private String cacheKey(String path) {
+        return this.baseURL + path + "#" + cacheUser();
+    }
+
+    /**
+     * Identifies the credentials in cache keys, as what Gogs answers depends on who asks.
+     */
+    private String cacheUser() {
+        return credentials == null ? "anonymous" : credentials.getUserName() + ":" + Util.getDigestOf(credentials.getPassword());
+    }
+
+    private <T> T getRequest(GetMethod httpget, final ObjectReader reader, @CheckForNull T notModifiedValue)
+            throws IOException, InterruptedException {
+        return executeGet(httpget, new ResponseParser<T>() {
+            @Override
+            public T parse(JsonParser parser) throws IOException {
+                return reader.readValue(parser);
+            }
+        }, notModifiedValue);
+    }
+
+    /**
+     * Reads the response body element by element, so memory is bounded by one element rather than the whole listing.
+     * The parser must be positioned on the array start token.
+     *
+     * @return false if the visitor asked to stop
+     */
+    private static <T> boolean visitArray(JsonParser parser, ObjectReader elementReader, GogsVisitor<? super T> visitor)
+            throws IOException, InterruptedException {
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException("Expected a JSON array", parser.getCurrentLocation());
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            T element = elementReader.readValue(parser);
+            if (!visitor.visit(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <T> T executeGet(String path, ResponseParser<T> responseParser) throws IOException, InterruptedException {
+        return executeGet(new GetMethod(this.baseURL + path), responseParser, null);
+    }
+
+    /**
+     * @param notModifiedValue the value to return if the server answers 304 Not Modified to a conditional request
+     */
+    private <T> T executeGet(GetMethod httpget, ResponseParser<T> responseParser, @CheckForNull T notModifiedValue) throws IOException, InterruptedException {
         HttpClient client = getHttpClient(getMethodHost(httpget));
-        String response = null;
         InputStream responseBodyAsStream = null;
+        GogsRequestGovernor.Permit permit = GogsRequestGovernor.forServer(baseURL).acquire(requestClass);
         try {
-            client.executeMethod(httpget);
-            responseBodyAsStream = httpget.getResponseBodyAsStream();
-            response = IOUtils.toString(responseBodyAsStream, "UTF-8");
-            if (httpget.getStatusCode() != HttpStatus.SC_OK) {
-                throw new GogsRequestException(httpget.getStatusCode(), "HTTP request error. Status: " + httpget.getStatusCode() + ": " + httpget.getStatusText() + ".\n" + response);
+            try {
+                client.executeMethod(httpget);
+                if (notModifiedValue != null && httpget.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    return notModifiedValue;
+                }
+                responseBodyAsStream = httpget.getResponseBodyAsStream();
+                if (httpget.getStatusCode() != HttpStatus.SC_OK) {
+                    String response = responseBodyAsStream != null ? IOUtils.toString(responseBodyAsStream, "UTF-8") : null;
+                    throw new GogsRequestException(httpget.getStatusCode(), "HTTP request error. Status: " + httpget.getStatusCode() + ": " + httpget.getStatusText() + ".\n" + response);
+                }
+            } catch (HttpException e) {
+                throw new GogsRequestException(0, "Communication error: " + e, e);
+            } catch (IOException e) {
+                throw new GogsRequestException(0, "Communication error: " + e, e);
+            }
+            if (responseBodyAsStream == null) {
+                throw new GogsRequestException(0, "HTTP request error " + httpget.getStatusCode() + ":" + httpget.getStatusText());
+            }
+            JsonParser parser = GogsJson.MAPPER.getJsonFactory().createJsonParser(responseBodyAsStream);
+            try {
+                return responseParser.parse(parser);
+            } finally {
+                parser.close();
             }
-        } catch (HttpException e) {
-            throw new GogsRequestException(0, "Communication error: " + e, e);
-        } catch (IOException e) {
-            throw new GogsRequestException(0, "Communication error: " + e, e);
         } finally {
-            httpget.releaseConnection();
             if (responseBodyAsStream != null) {
                 IOUtils.closeQuietly(responseBodyAsStream);
             }
+            httpget.releaseConnection();
+            permit.release();
         }
-        if (response == null) {
-            throw new GogsRequestException(0, "HTTP request error " + httpget.getStatusCode() + ":" + httpget.getStatusText());
-        }
-        return response;
     }
     
     private static String getMethodHost(HttpMethod method) {
@@ -341,7 +753,7 @@ public class GogsServerAPIClient implements GogsApi {
     }    
 
     private HttpClient getHttpClient(String host) {
-        HttpClient client = new HttpClient();
+        HttpClient client = new HttpClient(GogsConnectionPool.forServer(baseURL));
 
         client.getParams().setConnectionManagerTimeout(10 * 1000);
         client.getParams().setSoTimeout(60 * 1000);
@@ -377,25 +789,33 @@ public class GogsServerAPIClient implements GogsApi {
         return client;
     }
 
-    private int getRequestStatus(String path) {
-        GetMethod httpget = new GetMethod(this.baseURL + path);
-        HttpClient client = getHttpClient(getMethodHost(httpget));
+    /**
+     * @return the status of the response, or -1 on communication errors. The body is never read if large.
+     */
+    private int getRequestStatus(HttpMethodBase method) throws InterruptedException {
+        HttpClient client = getHttpClient(getMethodHost(method));
+        GogsRequestGovernor.Permit permit = GogsRequestGovernor.forServer(baseURL).acquire(requestClass);
         try {
-            client.executeMethod(httpget);
-            return httpget.getStatusCode();
+            client.executeMethod(method);
+            long length = method.getResponseContentLength();
+            if (!(method instanceof HeadMethod) && (length < 0 || length > DRAIN_LIMIT_BYTES)) {
+                // releasing the connection would download the whole file to reuse it
+                method.abort();
+            }
+            return method.getStatusCode();
         } catch (HttpException e) {
             LOGGER.log(Level.SEVERE, "Communication error", e);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Communication error", e);
         } finally {
-            httpget.releaseConnection();
+            method.releaseConnection();
+            permit.release();
         }
         return -1;
     }
 
     private <T> String serialize(T o) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        String valueAsString = mapper.writeValueAsString(o);
+        String valueAsString = GogsJson.WRITER.writeValueAsString(o);
         LOGGER.info("serialized value: " + valueAsString);
         return valueAsString;
     }
@@ -424,6 +844,13 @@ public class GogsServerAPIClient implements GogsApi {
         HttpClient client = getHttpClient(getMethodHost(httppost));
         String response = null;
         InputStream responseBodyAsStream = null;
+        GogsRequestGovernor.Permit permit;
+        try {
+            permit = GogsRequestGovernor.forServer(baseURL).acquire(requestClass);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GogsRequestException(0, "Interrupted while waiting to send the request", e);
+        }
         try {
             client.executeMethod(httppost);
             if (httppost.getStatusCode() == HttpStatus.SC_NO_CONTENT) {
@@ -446,6 +873,7 @@ public class GogsServerAPIClient implements GogsApi {
             if (responseBodyAsStream != null) {
                 IOUtils.closeQuietly(responseBodyAsStream);
             }
+            permit.release();
         }
         if (response == null) {
             throw new GogsRequestException(0, "HTTP request error");
@@ -455,8 +883,7 @@ public class GogsServerAPIClient implements GogsApi {
     }
 
     private String asJson(GogsWebHook hook) throws JsonGenerationException, JsonMappingException, IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(hook);
+        return GogsJson.WRITER.writeValueAsString(hook);
     }
 
 }
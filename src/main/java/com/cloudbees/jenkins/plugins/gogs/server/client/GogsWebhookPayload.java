@@ -27,8 +27,8 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.codehaus.jackson.map.ObjectMapper;
-
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsCreateEvent;
+import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPullRequestEvent;
 import com.cloudbees.jenkins.plugins.gogs.server.client.events.GogsPushEvent;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
@@ -41,17 +41,31 @@ public class GogsWebhookPayload {
     @CheckForNull
     public static GogsPushEvent pushEventFromPayload(@NonNull String payload) {
         try {
-            return parse(payload, GogsPushEvent.class);
+            return GogsJson.PUSH_EVENT_READER.readValue(payload);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Can not read hook payload", e);
         }
         return null;
     }
 
+    @CheckForNull
+    public static GogsPullRequestEvent pullRequestEventFromPayload(@NonNull String payload) {
+        try {
+            return GogsJson.PULL_REQUEST_EVENT_READER.readValue(payload);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Can not read hook payload", e);
+        }
+        return null;
+    }
 
-    private static <T> T parse(String response, Class<T> clazz) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(response, clazz);
+    @CheckForNull
+    public static GogsCreateEvent createEventFromPayload(@NonNull String payload) {
+        try {
+            return GogsJson.CREATE_EVENT_READER.readValue(payload);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Can not read hook payload", e);
+        }
+        return null;
     }
 
 }
\ No newline at end of file
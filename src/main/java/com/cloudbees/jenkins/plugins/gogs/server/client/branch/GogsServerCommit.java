@@ -23,6 +23,12 @@
  */
 package com.cloudbees.jenkins.plugins.gogs.server.client.branch;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 import org.codehaus.jackson.annotate.JsonProperty;
 
@@ -31,11 +37,18 @@ import com.cloudbees.jenkins.plugins.gogs.api.GogsCommit;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class GogsServerCommit implements GogsCommit {
 
+    private static final Logger LOGGER = Logger.getLogger(GogsServerCommit.class.getName());
+
     private String message;
 
     @JsonProperty("id")
     private String hash;
 
+    /**
+     * RFC 3339 commit date, as serialized by Gogs.
+     */
+    private String timestamp;
+
     public GogsServerCommit() {
     }
 
@@ -67,4 +80,27 @@ public class GogsServerCommit implements GogsCommit {
         this.hash = hash;
     }
 
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public long getDateMillis() {
+        if (timestamp == null) {
+            return 0;
+        }
+        try {
+            // Gogs may include fractional seconds, which SimpleDateFormat can not read beyond milliseconds
+            String withoutFraction = timestamp.replaceFirst("\\.\\d+", "");
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX", Locale.ENGLISH).parse(withoutFraction).getTime();
+        } catch (ParseException e) {
+            LOGGER.log(Level.FINE, "Unparseable commit timestamp: " + timestamp, e);
+            return 0;
+        }
+    }
+
 }
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client.events;
+
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import com.cloudbees.jenkins.plugins.gogs.server.client.pullrequest.GogsServerPullRequest;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.PayloadRepo;
+
+/**
+ * Payload of the Gogs {@code pull_request} hook.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GogsPullRequestEvent {
+
+    public static final String ACTION_OPENED = "opened";
+
+    public static final String ACTION_REOPENED = "reopened";
+
+    public static final String ACTION_CLOSED = "closed";
+
+    public static final String ACTION_SYNCHRONIZED = "synchronized";
+
+    /**
+     * What happened to the pull request: opened, closed, reopened, synchronized, edited, label_updated...
+     */
+    private String action;
+
+    private int number;
+
+    @JsonProperty("pull_request")
+    private GogsServerPullRequest pullRequest;
+
+    /**
+     * The base repository of the pull request.
+     */
+    private PayloadRepo repository;
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public GogsServerPullRequest getPullRequest() {
+        return pullRequest;
+    }
+
+    public void setPullRequest(GogsServerPullRequest pullRequest) {
+        this.pullRequest = pullRequest;
+    }
+
+    public PayloadRepo getRepository() {
+        return repository;
+    }
+
+    public void setRepository(PayloadRepo repository) {
+        this.repository = repository;
+    }
+
+}
@@ -34,6 +34,10 @@ public class GogsPushEvent {
 
     private String ref;
 
+    private String before;
+
+    private String after;
+
     private PayloadRepo repository;
 
     public PayloadRepo getRepository() {
@@ -52,4 +56,26 @@ public class GogsPushEvent {
         this.ref = ref;
     }
 
+    /**
+     * @return the hash the ref pointed to before the push
+     */
+    public String getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = before;
+    }
+
+    /**
+     * @return the hash the ref points to after the push
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client.pullrequest;
+
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import com.cloudbees.jenkins.plugins.gogs.api.GogsPullRequest;
+import com.cloudbees.jenkins.plugins.gogs.server.client.repository.GogsServerRepository;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GogsServerPullRequest implements GogsPullRequest {
+
+    private static final String STATE_OPEN = "open";
+
+    private int number;
+
+    private String title;
+
+    private String state;
+
+    @JsonProperty("head_branch")
+    private String headBranch;
+
+    @JsonProperty("head_repo")
+    private GogsServerRepository headRepository;
+
+    @JsonProperty("base_branch")
+    private String baseBranch;
+
+    @Override
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return STATE_OPEN.equals(state);
+    }
+
+    @Override
+    public String getHeadBranch() {
+        return headBranch;
+    }
+
+    public void setHeadBranch(String headBranch) {
+        this.headBranch = headBranch;
+    }
+
+    @Override
+    public GogsServerRepository getHeadRepository() {
+        return headRepository;
+    }
+
+    public void setHeadRepository(GogsServerRepository headRepository) {
+        this.headRepository = headRepository;
+    }
+
+    @Override
+    public String getBaseBranch() {
+        return baseBranch;
+    }
+
+    public void setBaseBranch(String baseBranch) {
+        this.baseBranch = baseBranch;
+    }
+
+}
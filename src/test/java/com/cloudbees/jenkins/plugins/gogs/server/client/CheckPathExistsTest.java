@@ -0,0 +1,196 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exercises {@link GogsServerAPIClient#checkPathExists(String, String)} against a stub Gogs server.
+ * Every test starts its own server, so what the client learns about HEAD support never leaks between tests.
+ */
+public class CheckPathExistsTest {
+
+    private static final String RAW = "/api/v1/repos/owner/repo/raw/master/";
+
+    private static final int LARGE_BODY_BYTES = 16 * 1024 * 1024;
+
+    private HttpServer server;
+
+    private GogsServerAPIClient client;
+
+    /**
+     * Requests received, as "METHOD path".
+     */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /**
+     * Status answered to HEAD requests for existing files, 404 being answered for missing ones anyway.
+     */
+    private volatile int headStatus = 200;
+
+    /**
+     * Whether HEAD requests answer 404 for every file.
+     */
+    private volatile boolean headAlwaysNotFound;
+
+    private final AtomicLong largeBodyBytesSent = new AtomicLong();
+
+    private final CountDownLatch largeBodyDone = new CountDownLatch(1);
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    respond(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        String baseURL = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new GogsServerAPIClient(baseURL, "owner", "repo", (StandardUsernamePasswordCredentials) null);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        requests.add(method + " " + path);
+        String file = path.startsWith(RAW) ? path.substring(RAW.length()) : null;
+        boolean exists = "Jenkinsfile".equals(file) || "large.bin".equals(file);
+        if ("HEAD".equals(method)) {
+            int status = !exists || headAlwaysNotFound ? 404 : headStatus;
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        if (!exists) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        if ("large.bin".equals(file)) {
+            sendLargeBody(exchange);
+            return;
+        }
+        byte[] body = "pipeline {}".getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void sendLargeBody(HttpExchange exchange) throws IOException {
+        try {
+            exchange.sendResponseHeaders(200, LARGE_BODY_BYTES);
+            OutputStream out = exchange.getResponseBody();
+            byte[] chunk = new byte[64 * 1024];
+            for (int sent = 0; sent < LARGE_BODY_BYTES; sent += chunk.length) {
+                out.write(chunk);
+                largeBodyBytesSent.addAndGet(chunk.length);
+            }
+        } catch (IOException e) {
+            // the client went away, which is what the test wants
+        } finally {
+            largeBodyDone.countDown();
+        }
+    }
+
+    @Test
+    public void headFindsFile() throws Exception {
+        assertThat(client.checkPathExists("master", "Jenkinsfile"), is(true));
+        assertThat(requests, is(Arrays.asList("HEAD " + RAW + "Jenkinsfile")));
+    }
+
+    @Test
+    public void headNotFoundIsConfirmedOnceWithGet() throws Exception {
+        assertThat(client.checkPathExists("master", "missing"), is(false));
+        assertThat(client.checkPathExists("master", "Jenkinsfile"), is(true));
+        assertThat(client.checkPathExists("master", "other"), is(false));
+        assertThat(requests, is(Arrays.asList(
+                "HEAD " + RAW + "missing",
+                // the GET agrees with the HEAD answer, so HEAD is trusted from now on
+                "GET " + RAW + "missing",
+                "HEAD " + RAW + "Jenkinsfile",
+                "HEAD " + RAW + "other")));
+    }
+
+    @Test
+    public void headNotFoundContradictedByGet() throws Exception {
+        headAlwaysNotFound = true;
+        assertThat(client.checkPathExists("master", "Jenkinsfile"), is(true));
+        assertThat(client.checkPathExists("master", "missing"), is(false));
+        assertThat(requests, is(Arrays.asList(
+                "HEAD " + RAW + "Jenkinsfile",
+                "GET " + RAW + "Jenkinsfile",
+                // HEAD answers can not be trusted on this server
+                "GET " + RAW + "missing")));
+    }
+
+    @Test
+    public void headNotAllowed() throws Exception {
+        headStatus = 405;
+        assertThat(client.checkPathExists("master", "Jenkinsfile"), is(true));
+        assertThat(client.checkPathExists("master", "missing"), is(false));
+        assertThat(requests, is(Arrays.asList(
+                "HEAD " + RAW + "Jenkinsfile",
+                "GET " + RAW + "Jenkinsfile",
+                "GET " + RAW + "missing")));
+    }
+
+    @Test
+    public void largeGetBodyIsAborted() throws Exception {
+        headStatus = 405;
+        assertThat(client.checkPathExists("master", "large.bin"), is(true));
+        assertTrue("server still sending the body", largeBodyDone.await(30, TimeUnit.SECONDS));
+        // socket buffers take some of the body before the connection is closed, but nowhere near all of it
+        assertTrue("sent " + largeBodyBytesSent.get() + " bytes", largeBodyBytesSent.get() < LARGE_BODY_BYTES / 2);
+    }
+
+}
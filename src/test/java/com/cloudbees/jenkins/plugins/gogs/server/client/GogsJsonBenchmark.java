@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cloudbees.jenkins.plugins.gogs.server.client.branch.GogsServerBranch;
+
+/**
+ * Compares binding Gogs API responses with a new {@link ObjectMapper} per call, as the client used to, against the
+ * shared readers of {@link GogsJson}.
+ *
+ * Not run by the build. Run {@link #main(String[])} from the test classpath once the test classes are compiled; the
+ * GC profiler reports the bytes allocated per operation ({@code gc.alloc.rate.norm}) next to the average time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GogsJsonBenchmark {
+
+    private static final int BRANCHES = 50;
+
+    private String branches;
+
+    private String branch;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < BRANCHES; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format("{\"name\":\"branch-%d\",\"commit\":{\"id\":\"%040x\",\"message\":\"commit %d\"}}", i, i, i));
+        }
+        branches = json.append(']').toString();
+        branch = "{\"name\":\"master\",\"commit\":{\"id\":\"0123456789abcdef0123456789abcdef01234567\",\"message\":\"first\"}}";
+    }
+
+    @Benchmark
+    public List<GogsServerBranch> branchesWithNewMapper() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        return mapper.readValue(branches, mapper.getTypeFactory().constructCollectionType(List.class, GogsServerBranch.class));
+    }
+
+    @Benchmark
+    public List<GogsServerBranch> branchesWithSharedReader() throws IOException {
+        return GogsJson.BRANCHES_READER.readValue(branches);
+    }
+
+    @Benchmark
+    public GogsServerBranch branchWithNewMapper() throws IOException {
+        return new ObjectMapper().readValue(branch, GogsServerBranch.class);
+    }
+
+    @Benchmark
+    public GogsServerBranch branchWithCachedReader() throws IOException {
+        return GogsJson.reader(GogsServerBranch.class).readValue(branch);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GogsJsonBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.gogs.server.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codehaus.jackson.map.ObjectReader;
+import org.junit.Test;
+
+import com.cloudbees.jenkins.plugins.gogs.server.client.branch.GogsServerBranch;
+import com.cloudbees.jenkins.plugins.gogs.server.client.pullrequest.GogsServerPullRequest;
+
+public class GogsJsonTest {
+
+    private static final String BRANCHES = "[{\"name\":\"master\",\"commit\":{\"id\":\"0123456789abcdef\",\"message\":\"first\"}},"
+            + "{\"name\":\"feature\",\"commit\":{\"id\":\"fedcba9876543210\",\"message\":\"second\"}}]";
+
+    @Test
+    public void readerIsCachedPerType() {
+        ObjectReader reader = GogsJson.reader(GogsServerBranch.class);
+        assertThat(GogsJson.reader(GogsServerBranch.class), sameInstance(reader));
+        assertThat(GogsJson.reader(GogsServerPullRequest.class), sameInstance(GogsJson.reader(GogsServerPullRequest.class)));
+    }
+
+    @Test
+    public void concurrentLookupsShareOneReader() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ObjectReader>> readers = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                readers.add(executor.submit(new Callable<ObjectReader>() {
+                    @Override
+                    public ObjectReader call() throws Exception {
+                        start.await();
+                        return GogsJson.reader(RaceTarget.class);
+                    }
+                }));
+            }
+            start.countDown();
+            ObjectReader first = readers.get(0).get();
+            for (Future<ObjectReader> reader : readers) {
+                assertThat(reader.get(), sameInstance(first));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sharedReaderBindsRepeatedly() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            List<GogsServerBranch> branches = GogsJson.BRANCHES_READER.readValue(BRANCHES);
+            assertThat(branches.size(), is(2));
+            assertThat(branches.get(0).getName(), is("master"));
+            assertThat(branches.get(1).getCommit().getHash(), is("fedcba9876543210"));
+        }
+    }
+
+    /**
+     * A type no other test looks up, so the concurrent lookups race on creating its reader.
+     */
+    public static class RaceTarget {
+        public boolean admin;
+    }
+
+}